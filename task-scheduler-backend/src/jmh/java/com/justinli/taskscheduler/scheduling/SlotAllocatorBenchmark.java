@@ -0,0 +1,107 @@
+package com.justinli.taskscheduler.scheduling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per {@link SlotAllocator} over the free slots of a working calendar: weekdays from
+ * 9:00 to 17:00 broken up by meetings into one to four gaps of 30 minutes to a few hours. 50 slots
+ * is about two weeks of a busy calendar, 500 a quarter and 5000 a team's shared horizon. Sessions
+ * are an hour with a 10-minute break.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotAllocatorBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+    private static final int SESSION_MINUTES = 60;
+    private static final int BREAK_MINUTES = 10;
+
+    @Param({"50", "500", "5000"})
+    private int slotCount;
+
+    @Param({"4", "40"})
+    private int sessionCount;
+
+    private List<TimeSlot> freeSlots;
+    private int totalMinutes;
+    private final SlotAllocator firstFit = SlotAllocator.firstFit();
+    private final SlotAllocator bestFit = SlotAllocator.bestFit();
+    private final SlotAllocator fillGaps = SlotAllocator.fillGaps(SlotAllocator.DEFAULT_MIN_SESSION_MINUTES);
+    private final SlotAllocator spread = SlotAllocator.spreadAcrossDays();
+
+    @Setup
+    public void setUp() {
+        freeSlots = workingCalendar(slotCount, new Random(42));
+        totalMinutes = sessionCount * SESSION_MINUTES;
+    }
+
+    // Sorted, disjoint gaps between meetings on weekdays, as AvailabilityIndex.freeSlots returns them
+    private static List<TimeSlot> workingCalendar(int count, Random random) {
+        List<TimeSlot> slots = new ArrayList<>(count);
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        while (slots.size() < count) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                ZonedDateTime time = day.atTime(9, 0).atZone(ZONE);
+                ZonedDateTime dayEnd = day.atTime(17, 0).atZone(ZONE);
+                int gaps = 1 + random.nextInt(4);
+                for (int i = 0; i < gaps && slots.size() < count; i++) {
+                    ZonedDateTime end = time.plusMinutes(30 + 15L * random.nextInt(15));
+                    if (end.isAfter(dayEnd)) {
+                        end = dayEnd;
+                    }
+                    if (!end.isAfter(time)) {
+                        break;
+                    }
+                    slots.add(new TimeSlot(time, end));
+                    // A meeting of 30 to 90 minutes before the next gap
+                    time = end.plusMinutes(30 + 30L * random.nextInt(3));
+                }
+            }
+            day = day.plusDays(1);
+        }
+        return slots;
+    }
+
+    @Benchmark
+    public List<TimeSlot> firstFit() {
+        return firstFit.allocate(freeSlots, totalMinutes, SESSION_MINUTES, BREAK_MINUTES);
+    }
+
+    @Benchmark
+    public List<TimeSlot> bestFit() {
+        return bestFit.allocate(freeSlots, totalMinutes, SESSION_MINUTES, BREAK_MINUTES);
+    }
+
+    @Benchmark
+    public List<TimeSlot> fillGaps() {
+        return fillGaps.allocate(freeSlots, totalMinutes, SESSION_MINUTES, BREAK_MINUTES);
+    }
+
+    @Benchmark
+    public List<TimeSlot> spread() {
+        return spread.allocate(freeSlots, totalMinutes, SESSION_MINUTES, BREAK_MINUTES);
+    }
+}
@@ -1,9 +1,14 @@
 package com.justinli.taskscheduler;
 
+import com.justinli.taskscheduler.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class TaskSchedulerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,281 @@
+package com.justinli.taskscheduler.cli;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
+import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.CalendarScopes;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.justinli.taskscheduler.scheduling.AvailabilityIndex;
+import com.justinli.taskscheduler.scheduling.AvailabilityTemplate;
+import com.justinli.taskscheduler.scheduling.PlannedSession;
+import com.justinli.taskscheduler.scheduling.SessionPlanner;
+import com.justinli.taskscheduler.scheduling.TimeSlot;
+import com.justinli.taskscheduler.service.CalendarBusyReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Schedules a file of tasks into Google Calendar in one run, for cron jobs that used to call
+ * {@code task_scheduler.py}. Runs without a Spring context: it reads the same {@code config.yaml},
+ * reuses the backend's slot engine and authorizes like the Python script (a browser on first use,
+ * the stored refresh token afterwards).
+ *
+ * Busy time is read once for the whole lookahead window. Tasks are planned earliest due date first
+ * and each task's sessions are marked busy before the next is planned; the events are then inserted
+ * with batch requests.
+ *
+ * <pre>
+ * java -cp task-scheduler.jar -Dloader.main=com.justinli.taskscheduler.cli.BatchSchedulerCli \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher [options] tasks.yaml
+ * </pre>
+ */
+public final class BatchSchedulerCli {
+
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final String TOKEN_USER = "cli";
+    private static final int MAX_BATCH_SIZE = 50; // Calendar API limit per batch request
+    private static final DateTimeFormatter SESSION_FORMAT = DateTimeFormatter.ofPattern("EEE MMM dd, HH:mm");
+
+    private static final String USAGE = """
+        Usage: BatchSchedulerCli [options] <tasks.yaml>
+
+        Options:
+          --config <path>      config.yaml to read (default: config.yaml)
+          --tokens-dir <path>  where the Google refresh token is kept (default: ~/.task-scheduler/tokens)
+          --dry-run            plan and print the sessions without creating events
+          --help               show this message
+        """;
+
+    private BatchSchedulerCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    // Exit codes: 0 all tasks scheduled, 1 some tasks or events failed, 2 bad arguments or setup
+    static int run(String[] args) {
+        Path configPath = Path.of("config.yaml");
+        Path tokensDir = Path.of(System.getProperty("user.home"), ".task-scheduler", "tokens");
+        boolean dryRun = false;
+        Path tasksPath = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config" -> configPath = Path.of(requireValue(args, ++i));
+                    case "--tokens-dir" -> tokensDir = Path.of(requireValue(args, ++i));
+                    case "--dry-run" -> dryRun = true;
+                    case "--help", "-h" -> {
+                        System.out.print(USAGE);
+                        return 0;
+                    }
+                    default -> {
+                        if (args[i].startsWith("-") || tasksPath != null) {
+                            System.err.print("Unexpected argument: " + args[i] + "\n\n" + USAGE);
+                            return 2;
+                        }
+                        tasksPath = Path.of(args[i]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.print(e.getMessage() + "\n\n" + USAGE);
+            return 2;
+        }
+        if (tasksPath == null) {
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        try {
+            CliConfig config = CliConfig.load(configPath);
+            List<BatchTask> tasks = BatchTask.load(tasksPath);
+            Calendar calendar = connect(config, tokensDir);
+            return schedule(calendar, config, tasks, dryRun);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int schedule(Calendar calendar, CliConfig config, List<BatchTask> tasks, boolean dryRun)
+            throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        ZonedDateTime searchStart = ZonedDateTime.now(zone).truncatedTo(ChronoUnit.MINUTES);
+        ZonedDateTime searchEnd = searchStart.plusDays(config.lookaheadDays());
+
+        AvailabilityIndex index = AvailabilityIndex.build(
+            searchStart, searchEnd, template(config), config.breakMinutes(),
+            CalendarBusyReader.read(calendar, config.calendarId(), searchStart.toInstant(), searchEnd.toInstant())
+        );
+
+        List<BatchTask> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator.comparing(BatchTask::due, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        int failed = 0;
+        List<Event> events = new ArrayList<>();
+        for (BatchTask task : ordered) {
+            int totalMinutes = (int) Math.round(task.hours() * 60);
+            int maxSessionMinutes = (int) Math.round(
+                (task.maxSessionHours() != null ? task.maxSessionHours() : config.maxSessionHours()) * 60);
+            String description = task.description() != null ? task.description() : config.defaultDescription();
+
+            ZonedDateTime deadline = task.due() != null
+                ? task.due().plusDays(1).atStartOfDay(zone)
+                : searchEnd;
+            List<TimeSlot> freeSlots = index.freeSlots(SessionPlanner.minSlotMinutes(totalMinutes, maxSessionMinutes))
+                .stream()
+                .filter(slot -> slot.start().isBefore(deadline))
+                .map(slot -> slot.end().isAfter(deadline) ? new TimeSlot(slot.start(), deadline) : slot)
+                .toList();
+
+            Optional<List<PlannedSession>> sessions = SessionPlanner.tryPlan(
+                freeSlots, task.name(), description, totalMinutes, maxSessionMinutes, config.breakMinutes(), false
+            );
+            if (sessions.isEmpty()) {
+                System.out.printf("✗ %s (%.1fh): not enough free time%s%n", task.name(), task.hours(),
+                    task.due() != null ? " before " + task.due() : " in the next " + config.lookaheadDays() + " days");
+                failed++;
+                continue;
+            }
+
+            System.out.printf("✓ %s (%.1fh) in %d session(s)%n", task.name(), task.hours(), sessions.get().size());
+            for (PlannedSession session : sessions.get()) {
+                index.addBusy(session.toBusyInterval());
+                events.add(toEvent(session));
+                System.out.printf("    %s - %s%n", session.start().format(SESSION_FORMAT),
+                    session.end().format(DateTimeFormatter.ofPattern("HH:mm")));
+            }
+        }
+
+        if (dryRun) {
+            System.out.println("Dry run: " + events.size() + " event(s) not created.");
+        } else if (!events.isEmpty()) {
+            failed += insertAll(calendar, config.calendarId(), events);
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    // Returns the number of events Google rejected
+    private static int insertAll(Calendar calendar, String calendarId, List<Event> events) throws IOException {
+        int[] failed = {0};
+        JsonBatchCallback<Event> callback = new JsonBatchCallback<>() {
+            @Override
+            public void onSuccess(Event event, HttpHeaders responseHeaders) {
+            }
+
+            @Override
+            public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                System.err.println("Failed to create event: " + error.getMessage());
+                failed[0]++;
+            }
+        };
+
+        for (int from = 0; from < events.size(); from += MAX_BATCH_SIZE) {
+            BatchRequest batch = calendar.batch();
+            for (Event event : events.subList(from, Math.min(from + MAX_BATCH_SIZE, events.size()))) {
+                calendar.events().insert(calendarId, event).queue(batch, callback);
+            }
+            batch.execute();
+        }
+        System.out.println("Created " + (events.size() - failed[0]) + " of " + events.size() + " event(s).");
+        return failed[0];
+    }
+
+    private static AvailabilityTemplate template(CliConfig config) {
+        if (config.includeWeekends()) {
+            return AvailabilityTemplate.fromWorkHours(config.workStartHour(), config.workEndHour());
+        }
+        Set<DayOfWeek> weekdays = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        return AvailabilityTemplate.builder()
+            .addWindow(weekdays, config.workStartHour() * 60, config.workEndHour() * 60)
+            .build();
+    }
+
+    private static Event toEvent(PlannedSession session) {
+        return new Event()
+            .setSummary(session.summary())
+            .setDescription(session.description())
+            .setStart(new EventDateTime()
+                .setDateTime(new DateTime(Date.from(session.start().toInstant())))
+                .setTimeZone(session.start().getZone().getId()))
+            .setEnd(new EventDateTime()
+                .setDateTime(new DateTime(Date.from(session.end().toInstant())))
+                .setTimeZone(session.end().getZone().getId()));
+    }
+
+    /**
+     * Authorizes with the installed-app flow. Without a stored token this opens a browser, so the
+     * first run has to be interactive; cron runs after that use the refresh token.
+     */
+    private static Calendar connect(CliConfig config, Path tokensDir) throws IOException, GeneralSecurityException {
+        Path credentialsPath = Path.of(config.credentialsPath());
+        if (!Files.exists(credentialsPath)) {
+            throw new IOException("Credentials file not found at " + credentialsPath
+                + ". Please download it from Google Cloud Console.");
+        }
+        GoogleClientSecrets clientSecrets;
+        try (Reader reader = Files.newBufferedReader(credentialsPath)) {
+            clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, reader);
+        }
+
+        HttpTransport transport = GoogleNetHttpTransport.newTrustedTransport();
+        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
+            transport, JSON_FACTORY, clientSecrets, Set.of(CalendarScopes.CALENDAR)
+        )
+            .setDataStoreFactory(new FileDataStoreFactory(tokensDir.toFile()))
+            .setAccessType("offline")
+            .build();
+
+        Credential credential = flow.loadCredential(TOKEN_USER);
+        if (credential == null || (credential.getRefreshToken() == null && credential.getAccessToken() == null)) {
+            if (System.console() == null) {
+                throw new IllegalStateException("No stored Google token in " + tokensDir
+                    + "; run once from a terminal to authorize.");
+            }
+            credential = new AuthorizationCodeInstalledApp(flow, new LocalServerReceiver()).authorize(TOKEN_USER);
+        }
+
+        return new Calendar.Builder(transport, JSON_FACTORY, credential)
+            .setApplicationName("Task Scheduler CLI")
+            .build();
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+}
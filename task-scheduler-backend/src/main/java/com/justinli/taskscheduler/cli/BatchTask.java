@@ -0,0 +1,66 @@
+package com.justinli.taskscheduler.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One entry of the tasks file. The file is YAML, either a list of tasks or a mapping with a
+ * {@code tasks} list:
+ *
+ * <pre>
+ * tasks:
+ *   - name: Write report
+ *     hours: 5
+ *     description: Draft and review   # optional, defaults.description from config.yaml
+ *     max_session_hours: 2            # optional, scheduling.max_session_hours from config.yaml
+ *     due: 2026-10-25                 # optional, sessions must end by the end of this day
+ * </pre>
+ */
+record BatchTask(String name, double hours, String description, Double maxSessionHours, LocalDate due) {
+
+    @SuppressWarnings("unchecked")
+    static List<BatchTask> load(Path path) throws IOException {
+        Object entries = CliConfig.readDocument(path);
+        if (entries instanceof Map<?, ?> root) {
+            entries = root.get("tasks");
+        }
+        if (!(entries instanceof List<?> list)) {
+            throw new IOException(path + " must contain a list of tasks");
+        }
+
+        List<BatchTask> tasks = new ArrayList<>();
+        for (Object entry : list) {
+            if (!(entry instanceof Map)) {
+                throw new IOException("Each task must be a mapping, got: " + entry);
+            }
+            Map<String, Object> values = (Map<String, Object>) entry;
+            String name = CliConfig.string(values, "name", null);
+            if (name == null || name.isBlank()) {
+                throw new IOException("Task without a name: " + values);
+            }
+            double hours = CliConfig.number(values, "hours", 0).doubleValue();
+            if (hours <= 0) {
+                throw new IOException("Task '" + name + "' needs positive 'hours'");
+            }
+            Number maxSession = CliConfig.number(values, "max_session_hours", null);
+            Object due = values.get("due");
+            tasks.add(new BatchTask(
+                name,
+                hours,
+                CliConfig.string(values, "description", null),
+                maxSession != null ? maxSession.doubleValue() : null,
+                // SnakeYAML turns unquoted dates into java.util.Date; quoted ones stay strings
+                due == null ? null : due instanceof Date date
+                    ? date.toInstant().atZone(ZoneOffset.UTC).toLocalDate()
+                    : LocalDate.parse(due.toString())
+            ));
+        }
+        return tasks;
+    }
+}
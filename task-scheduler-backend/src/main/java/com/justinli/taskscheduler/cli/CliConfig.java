@@ -0,0 +1,94 @@
+package com.justinli.taskscheduler.cli;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The settings of the Python script's {@code config.yaml} (calendar, work_hours, scheduling, defaults),
+ * with the same defaults when a key or the whole file is missing.
+ */
+record CliConfig(
+    String calendarId,
+    String credentialsPath,
+    int workStartHour,
+    int workEndHour,
+    boolean includeWeekends,
+    double maxSessionHours,
+    int lookaheadDays,
+    int breakMinutes,
+    String defaultDescription
+) {
+
+    static CliConfig load(Path path) throws IOException {
+        Map<String, Object> root = Map.of();
+        if (Files.exists(path)) {
+            root = readYaml(path);
+        } else {
+            System.err.println("Config file " + path + " not found, using defaults.");
+        }
+        Map<String, Object> calendar = section(root, "calendar");
+        Map<String, Object> workHours = section(root, "work_hours");
+        Map<String, Object> scheduling = section(root, "scheduling");
+        Map<String, Object> defaults = section(root, "defaults");
+
+        return new CliConfig(
+            string(calendar, "id", "primary"),
+            string(calendar, "credentials_path", "credentials.json"),
+            number(workHours, "start", 9).intValue(),
+            number(workHours, "end", 17).intValue(),
+            Boolean.TRUE.equals(workHours.get("include_weekends")),
+            number(scheduling, "max_session_hours", 4.0).doubleValue(),
+            number(scheduling, "lookahead_days", 14).intValue(),
+            number(scheduling, "min_break_minutes", 0).intValue(),
+            string(defaults, "description", "")
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> readYaml(Path path) throws IOException {
+        Object document = readDocument(path);
+        if (document == null) {
+            return Map.of();
+        }
+        if (!(document instanceof Map)) {
+            throw new IOException(path + " must contain a YAML mapping");
+        }
+        return (Map<String, Object>) document;
+    }
+
+    // Plain maps, lists and scalars only; no arbitrary object construction
+    static Object readDocument(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path)) {
+            return new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> section(Map<String, Object> root, String name) {
+        Object value = root.get(name);
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    static String string(Map<String, Object> values, String key, String fallback) {
+        Object value = values.get(key);
+        return value != null ? value.toString() : fallback;
+    }
+
+    static Number number(Map<String, Object> values, String key, Number fallback) {
+        Object value = values.get(key);
+        if (value instanceof Number number) {
+            return number;
+        }
+        if (value != null) {
+            throw new IllegalArgumentException("'" + key + "' must be a number, got: " + value);
+        }
+        return fallback;
+    }
+}
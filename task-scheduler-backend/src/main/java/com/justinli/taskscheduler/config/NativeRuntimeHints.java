@@ -0,0 +1,68 @@
+package com.justinli.taskscheduler.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+
+/**
+ * Reflection and resource hints for the native image (see the {@code native} Maven profile).
+ *
+ * The Google API client maps JSON onto {@code @Key} fields of its model classes reflectively, and
+ * jjwt instantiates its implementation classes by name and finds its Jackson serializer through
+ * {@code ServiceLoader}. None of that is visible to the AOT engine, so the packages are scanned here
+ * at build time.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] JSON_MODEL = {
+        MemberCategory.DECLARED_FIELDS,
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+        MemberCategory.INVOKE_PUBLIC_METHODS
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        MetadataReaderFactory readerFactory = new CachingMetadataReaderFactory(resolver);
+
+        // Google Calendar API and OAuth JSON models
+        registerPackage(hints, resolver, readerFactory, "com/google/api/services/calendar/model", JSON_MODEL);
+        registerPackage(hints, resolver, readerFactory, "com/google/api/client/auth/oauth2", JSON_MODEL);
+        registerPackage(hints, resolver, readerFactory, "com/google/api/client/googleapis/auth/oauth2", JSON_MODEL);
+        registerPackage(hints, resolver, readerFactory, "com/google/api/client/googleapis/json", JSON_MODEL);
+        registerPackage(hints, resolver, readerFactory, "com/google/api/client/json", JSON_MODEL);
+
+        // jjwt implementation classes, loaded by name from the API module
+        registerPackage(hints, resolver, readerFactory, "io/jsonwebtoken/impl/**",
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+        registerPackage(hints, resolver, readerFactory, "io/jsonwebtoken/jackson/io",
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        // Client secrets are read from a file, but the Google trust store ships inside the jar
+        hints.resources().registerPattern("com/google/api/client/googleapis/google.p12");
+        hints.resources().registerPattern("com/google/api/client/googleapis/google.jks");
+    }
+
+    private static void registerPackage(RuntimeHints hints, PathMatchingResourcePatternResolver resolver,
+                                        MetadataReaderFactory readerFactory, String packagePath,
+                                        MemberCategory... categories) {
+        try {
+            for (Resource resource : resolver.getResources("classpath*:" + packagePath + "/*.class")) {
+                String className = readerFactory.getMetadataReader(resource).getClassMetadata().getClassName();
+                if (!className.endsWith("package-info")) {
+                    hints.reflection().registerType(TypeReference.of(className), categories);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to scan " + packagePath + " for native hints", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.justinli.taskscheduler.controller;
+
+import com.justinli.taskscheduler.model.CompletionRollup;
+import com.justinli.taskscheduler.service.AnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scheduling dashboards, read from the rollup tables. Ranges are inclusive dates and default to
+ * 30 days either side of today.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/hours/by-day")
+    public ResponseEntity<?> hoursByDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return hours(from, to, "day", analyticsService::minutesByDayForCurrentUser);
+    }
+
+    @GetMapping("/hours/by-priority")
+    public ResponseEntity<?> hoursByPriority(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return hours(from, to, "priority", analyticsService::minutesByPriorityForCurrentUser);
+    }
+
+    @GetMapping("/hours/by-calendar")
+    public ResponseEntity<?> hoursByCalendar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return hours(from, to, "calendarId", analyticsService::minutesByCalendarForCurrentUser);
+    }
+
+    /**
+     * Completed tasks per completion day, split into on time, late and without a due date.
+     */
+    @GetMapping("/completion")
+    public ResponseEntity<?> completion(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now().minusDays(DEFAULT_RANGE_DAYS);
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(DEFAULT_RANGE_DAYS);
+        if (end.isBefore(start)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "'to' must not be before 'from'."));
+        }
+
+        long onTime = 0;
+        long late = 0;
+        long noDueDate = 0;
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (CompletionRollup rollup : analyticsService.completionsForCurrentUser(start, end)) {
+            onTime += rollup.getOnTime();
+            late += rollup.getLate();
+            noDueDate += rollup.getNoDueDate();
+            buckets.add(Map.of(
+                "day", rollup.getDay(),
+                "onTime", rollup.getOnTime(),
+                "late", rollup.getLate(),
+                "noDueDate", rollup.getNoDueDate()
+            ));
+        }
+        return ResponseEntity.ok(Map.of(
+            "from", start,
+            "to", end,
+            "onTime", onTime,
+            "late", late,
+            "noDueDate", noDueDate,
+            "buckets", buckets
+        ));
+    }
+
+    /**
+     * Recomputes the current user's rollups from their tasks and sessions.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        analyticsService.rebuildForCurrentUser();
+        return ResponseEntity.ok(Map.of("message", "Analytics rebuilt"));
+    }
+
+    private ResponseEntity<?> hours(LocalDate from, LocalDate to, String keyName, RollupQuery query) {
+        LocalDate start = from != null ? from : LocalDate.now().minusDays(DEFAULT_RANGE_DAYS);
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(DEFAULT_RANGE_DAYS);
+        if (end.isBefore(start)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "'to' must not be before 'from'."));
+        }
+
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (Object[] row : query.find(start, end)) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put(keyName, row[0]);
+            bucket.put("hours", ((Number) row[1]).longValue() / 60.0);
+            bucket.put("sessions", ((Number) row[2]).longValue());
+            buckets.add(bucket);
+        }
+        return ResponseEntity.ok(Map.of("from", start, "to", end, "buckets", buckets));
+    }
+
+    @FunctionalInterface
+    private interface RollupQuery {
+        List<Object[]> find(LocalDate from, LocalDate to);
+    }
+}
@@ -0,0 +1,35 @@
+package com.justinli.taskscheduler.controller;
+
+import com.justinli.taskscheduler.dto.AvailabilitySettings;
+import com.justinli.taskscheduler.service.AvailabilityService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    @GetMapping
+    public ResponseEntity<AvailabilitySettings> getAvailability() {
+        return ResponseEntity.ok(availabilityService.getSettingsForCurrentUser());
+    }
+
+    @PutMapping
+    public ResponseEntity<?> replaceAvailability(@RequestBody AvailabilitySettings settings) {
+        try {
+            return ResponseEntity.ok(availabilityService.replaceSettingsForCurrentUser(settings));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,16 +1,36 @@
 package com.justinli.taskscheduler.controller;
 
+import com.google.api.services.calendar.model.CalendarList;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
 import com.justinli.taskscheduler.dto.CalendarStatusResponse;
+import com.justinli.taskscheduler.dto.CommonFreeSlotsRequest;
+import com.justinli.taskscheduler.dto.CommonFreeSlotsResponse;
 import com.justinli.taskscheduler.dto.CreateEventRequest;
+import com.justinli.taskscheduler.dto.EventResponse;
 import com.justinli.taskscheduler.dto.ScheduleTaskRequest;
+import com.justinli.taskscheduler.dto.TaskResponse;
+import com.justinli.taskscheduler.exception.GoogleCalendarUnavailableException;
+import com.justinli.taskscheduler.model.CalendarWatchChannel;
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.scheduling.AvailabilityTemplate;
+import com.justinli.taskscheduler.scheduling.PlanCandidate;
+import com.justinli.taskscheduler.scheduling.PlanProposal;
+import com.justinli.taskscheduler.scheduling.PlanProposer;
+import com.justinli.taskscheduler.scheduling.SlotAllocator;
+import com.justinli.taskscheduler.security.UserContext;
+import com.justinli.taskscheduler.service.AvailabilityService;
+import com.justinli.taskscheduler.service.CalendarWatchService;
 import com.justinli.taskscheduler.service.GoogleCalendarService;
+import com.justinli.taskscheduler.service.SchedulingService;
+import com.justinli.taskscheduler.service.TeamAvailabilityService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.net.URI;
@@ -27,13 +47,25 @@ import java.util.Map;
 public class CalendarController {
 
     private final GoogleCalendarService googleCalendarService;
+    private final TeamAvailabilityService teamAvailabilityService;
+    private final AvailabilityService availabilityService;
+    private final SchedulingService schedulingService;
+    private final CalendarWatchService calendarWatchService;
     private final String frontendBaseUrl;
 
     public CalendarController(
         GoogleCalendarService googleCalendarService,
+        TeamAvailabilityService teamAvailabilityService,
+        AvailabilityService availabilityService,
+        SchedulingService schedulingService,
+        CalendarWatchService calendarWatchService,
         @Value("${app.frontend.url:http://localhost:3000}") String frontendBaseUrl
     ) {
         this.googleCalendarService = googleCalendarService;
+        this.teamAvailabilityService = teamAvailabilityService;
+        this.availabilityService = availabilityService;
+        this.schedulingService = schedulingService;
+        this.calendarWatchService = calendarWatchService;
         this.frontendBaseUrl = frontendBaseUrl;
     }
 
@@ -52,14 +84,18 @@ public class CalendarController {
     }
 
     @GetMapping("/oauth2callback")
-    public ResponseEntity<Void> handleOAuthCallback(@RequestParam("code") String code) {
+    public ResponseEntity<Void> handleOAuthCallback(
+            @RequestParam("code") String code,
+            @RequestParam(value = "state", required = false) String state) {
         try {
-            googleCalendarService.handleOAuthCallback(code);
+            // Google redirects the browser here without our JWT; the state names the user
+            String email = googleCalendarService.handleOAuthCallback(code, state);
+            UserContext.runAs(email, this::watchPrimaryCalendar);
             URI redirectUri = URI.create(frontendBaseUrl + "/?google=connected");
             return ResponseEntity.status(HttpStatus.FOUND)
                 .header(HttpHeaders.LOCATION, redirectUri.toString())
                 .build();
-        } catch (IOException e) {
+        } catch (IOException | GoogleCalendarUnavailableException e) {
             URI redirectUri = URI.create(frontendBaseUrl + "/?google=error");
             return ResponseEntity.status(HttpStatus.FOUND)
                 .header(HttpHeaders.LOCATION, redirectUri.toString())
@@ -68,10 +104,15 @@ public class CalendarController {
     }
 
     @GetMapping("/list")
-    public ResponseEntity<?> getCalendarList() {
+    public ResponseEntity<?> getCalendarList(WebRequest webRequest) {
         try {
-            List<CalendarListEntry> calendars = googleCalendarService.getCalendarList();
-            return ResponseEntity.ok(calendars);
+            CalendarList calendars = googleCalendarService.getCalendarListPage();
+            String etag = ETags.of(calendars.getEtag());
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            List<CalendarListEntry> items = calendars.getItems();
+            return ResponseEntity.ok().eTag(etag).body(items);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
@@ -81,6 +122,41 @@ public class CalendarController {
         }
     }
 
+    @PostMapping("/watch/{calendarId}")
+    public ResponseEntity<?> watchCalendar(@PathVariable String calendarId) {
+        try {
+            CalendarWatchChannel channel = calendarWatchService.watch(calendarId);
+            return ResponseEntity.ok(Map.of(
+                "calendarId", channel.getCalendarId(),
+                "channelId", channel.getChannelId(),
+                "expiration", channel.getExpiration()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IOException | GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to watch calendar: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/watch/{calendarId}")
+    public ResponseEntity<?> unwatchCalendar(@PathVariable String calendarId) {
+        calendarWatchService.unwatch(calendarId);
+        return ResponseEntity.ok(Map.of("message", "Stopped watching calendar"));
+    }
+
+    // Google push notification webhook; the body is empty and everything is in X-Goog-* headers
+    @PostMapping("/notifications")
+    public ResponseEntity<Void> receiveNotification(
+            @RequestHeader("X-Goog-Channel-ID") String channelId,
+            @RequestHeader(value = "X-Goog-Channel-Token", required = false) String token,
+            @RequestHeader(value = "X-Goog-Resource-ID", required = false) String resourceId,
+            @RequestHeader("X-Goog-Resource-State") String resourceState) {
+        boolean accepted = calendarWatchService.handleNotification(channelId, token, resourceId, resourceState);
+        return accepted ? ResponseEntity.ok().build() : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
     @PostMapping("/events")
     public ResponseEntity<?> createEvent(@RequestBody CreateEventRequest request) {
         try {
@@ -106,7 +182,7 @@ public class CalendarController {
                 endTime
             );
 
-            return ResponseEntity.ok(event);
+            return ResponseEntity.ok(EventResponse.fromEvent(event));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
@@ -137,7 +213,8 @@ public class CalendarController {
             @PathVariable String calendarId,
             @RequestParam String timeMin,
             @RequestParam String timeMax,
-            @RequestParam(required = false) String timeZone) {
+            @RequestParam(required = false) String timeZone,
+            WebRequest webRequest) {
         try {
             ZoneId zoneId = timeZone != null ? ZoneId.of(timeZone) : ZoneId.systemDefault();
 
@@ -151,8 +228,13 @@ public class CalendarController {
                 DateTimeFormatter.ISO_DATE_TIME
             ).withZoneSameInstant(zoneId);
 
-            List<Event> events = googleCalendarService.getEvents(calendarId, startTime, endTime);
-            return ResponseEntity.ok(events);
+            Events events = googleCalendarService.listEvents(calendarId, startTime, endTime);
+            // Google's collection ETag covers the events; the window and zone change what we return
+            String etag = ETags.of(events.getEtag(), calendarId, startTime, endTime);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(EventResponse.fromEvents(events.getItems()));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
@@ -185,10 +267,14 @@ public class CalendarController {
             ).withZoneSameInstant(zoneId);
 
             List<Map<String, ZonedDateTime>> slots = googleCalendarService.findFreeTimeSlots(
-                calendarId, startTime, endTime, workStartHour, workEndHour, minSlotDurationMinutes, null, 0
+                calendarId, startTime, endTime, resolveAvailability(workStartHour, workEndHour),
+                minSlotDurationMinutes, null, 0
             );
 
             return ResponseEntity.ok(slots);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
@@ -198,6 +284,46 @@ public class CalendarController {
         }
     }
 
+    @PostMapping("/common-free-slots")
+    public ResponseEntity<?> findCommonFreeSlots(@RequestBody CommonFreeSlotsRequest request) {
+        try {
+            ZoneId zoneId = request.getTimeZone() != null
+                ? ZoneId.of(request.getTimeZone())
+                : ZoneId.systemDefault();
+
+            ZonedDateTime searchStart = ZonedDateTime.parse(
+                request.getSearchStartTime(),
+                DateTimeFormatter.ISO_DATE_TIME
+            ).withZoneSameInstant(zoneId);
+
+            ZonedDateTime searchEnd = ZonedDateTime.parse(
+                request.getSearchEndTime(),
+                DateTimeFormatter.ISO_DATE_TIME
+            ).withZoneSameInstant(zoneId);
+
+            CommonFreeSlotsResponse response = teamAvailabilityService.findCommonFreeSlots(
+                request.getParticipants(),
+                searchStart,
+                searchEnd,
+                request.getWorkStartHour(),
+                request.getWorkEndHour(),
+                request.getDurationMinutes(),
+                request.getMaxResults()
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IOException | GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to find common free slots: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/schedule-task")
     public ResponseEntity<?> scheduleTask(@RequestBody ScheduleTaskRequest request) {
         try {
@@ -215,7 +341,8 @@ public class CalendarController {
                 DateTimeFormatter.ISO_DATE_TIME
             ).withZoneSameInstant(zoneId);
 
-            List<Event> events = googleCalendarService.scheduleTask(
+            Task task = schedulingService.scheduleTask(
+                request.getTaskId(),
                 request.getCalendarId() != null ? request.getCalendarId() : "primary",
                 request.getTaskSummary(),
                 request.getTaskDescription(),
@@ -223,17 +350,26 @@ public class CalendarController {
                 request.getMaxSessionHours(),
                 searchStart,
                 searchEnd,
-                request.getWorkStartHour(),
-                request.getWorkEndHour(),
+                resolveAvailability(request.getWorkStartHour(), request.getWorkEndHour()),
                 request.getConflictCalendarIds(),
-                request.getBreakTimeMinutes()
+                request.getBreakTimeMinutes(),
+                request.getPlan() != null ? PlanCandidate.parse(request.getPlan()) : null,
+                SlotAllocator.parse(request.getAllocator(), request.getMinSessionHours() != null
+                    ? (int) Math.round(request.getMinSessionHours() * 60)
+                    : null)
             );
 
+            // Google events are created by the outbox dispatcher once the plan is committed
+            TaskResponse taskResponse = TaskResponse.fromTask(task);
             return ResponseEntity.ok(Map.of(
                 "message", "Task scheduled successfully",
-                "eventsCreated", events.size(),
-                "events", events
+                "eventsCreated", taskResponse.getSessionCount(),
+                "task", taskResponse,
+                "events", taskResponse.getSessions()
             ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("error", e.getMessage()));
@@ -242,4 +378,78 @@ public class CalendarController {
                 .body(Map.of("error", "Failed to schedule task: " + e.getMessage()));
         }
     }
+
+    /**
+     * Dry run of /schedule-task: returns ranked alternative plans without creating any events.
+     * Send the chosen proposal's {@code plan} back to /schedule-task to commit it.
+     */
+    @PostMapping("/schedule-task/proposals")
+    public ResponseEntity<?> proposeSchedules(@RequestBody ScheduleTaskRequest request) {
+        try {
+            ZoneId zoneId = request.getTimeZone() != null
+                ? ZoneId.of(request.getTimeZone())
+                : ZoneId.systemDefault();
+
+            ZonedDateTime searchStart = ZonedDateTime.parse(
+                request.getSearchStartTime(),
+                DateTimeFormatter.ISO_DATE_TIME
+            ).withZoneSameInstant(zoneId);
+
+            ZonedDateTime searchEnd = ZonedDateTime.parse(
+                request.getSearchEndTime(),
+                DateTimeFormatter.ISO_DATE_TIME
+            ).withZoneSameInstant(zoneId);
+
+            PlanProposer.Objective objective = request.getObjective() != null
+                ? PlanProposer.Objective.valueOf(request.getObjective().toUpperCase())
+                : PlanProposer.Objective.BALANCED;
+
+            List<PlanProposal> proposals = schedulingService.proposePlans(
+                request.getCalendarId() != null ? request.getCalendarId() : "primary",
+                request.getTaskSummary(),
+                request.getTaskDescription(),
+                request.getTotalHours(),
+                request.getMaxSessionHours(),
+                searchStart,
+                searchEnd,
+                resolveAvailability(request.getWorkStartHour(), request.getWorkEndHour()),
+                request.getConflictCalendarIds(),
+                request.getBreakTimeMinutes(),
+                objective,
+                request.getMaxProposals() > 0 ? request.getMaxProposals() : 5
+            );
+
+            return ResponseEntity.ok(Map.of(
+                "objective", objective,
+                "proposals", proposals
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IOException | GeneralSecurityException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to propose schedules: " + e.getMessage()));
+        }
+    }
+
+    private void watchPrimaryCalendar() {
+        if (!calendarWatchService.isEnabled()) {
+            return;
+        }
+        try {
+            calendarWatchService.watch("primary");
+        } catch (Exception e) {
+            // Reads still work without a channel, just uncached
+            System.err.println("Failed to watch primary calendar: " + e.getMessage());
+        }
+    }
+
+    // Saved availability rules take precedence over the work hours sent with the request
+    private AvailabilityTemplate resolveAvailability(int workStartHour, int workEndHour) {
+        return availabilityService.getTemplateForCurrentUser()
+            .orElseGet(() -> AvailabilityTemplate.fromWorkHours(workStartHour, workEndHour));
+    }
 }
@@ -0,0 +1,37 @@
+package com.justinli.taskscheduler.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Builds ETags from version data (row versions, upstream Google ETags, query parameters).
+ *
+ * The tags are weak: the same version is served as JSON, CBOR or Smile, gzipped or not, and a strong
+ * tag would have to differ per encoding (Tomcat also refuses to compress strongly tagged responses).
+ * If-None-Match uses weak comparison, so conditional GETs behave the same.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        // 128 bits is plenty to tell versions apart and keeps the header short
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -7,10 +7,12 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -56,9 +58,26 @@ public class TaskController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
+    public ResponseEntity<List<Task>> getAllTasks(WebRequest webRequest) {
+        // Compare versions first so an unchanged list is neither loaded nor serialized
+        String etag = ETags.of(taskService.getTaskListVersionForCurrentUser());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<Task> tasks = taskService.getAllTasksForCurrentUser();
-        return ResponseEntity.ok(tasks);
+        return ResponseEntity.ok().eTag(etag).body(tasks);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchTasks(@RequestParam("q") String query,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Query 'q' must not be blank."));
+        }
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "'limit' must be between 1 and 100."));
+        }
+        return ResponseEntity.ok(taskService.searchTasksForCurrentUser(query, limit));
     }
 
     @GetMapping("/{id}")
@@ -69,7 +88,7 @@ public class TaskController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody TaskRequest request) {
+    public ResponseEntity<?> updateTask(@PathVariable Long id, @Valid @RequestBody TaskRequest request) {
         try {
             Task updatedTask = new Task();
             updatedTask.setName(request.getTitle());
@@ -91,6 +110,14 @@ public class TaskController {
                 }
             }
 
+            if (request.getStatus() != null) {
+                try {
+                    updatedTask.setStatus(Task.TaskStatus.valueOf(request.getStatus().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    // Keep existing status if invalid
+                }
+            }
+
             updatedTask.setMaxSessionHours(request.getMaxSessionHours());
             updatedTask.setWorkHoursStart(request.getWorkHoursStart());
             updatedTask.setWorkHoursEnd(request.getWorkHoursEnd());
@@ -100,6 +127,10 @@ public class TaskController {
             return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            // e.g. the new duration no longer fits into the calendar
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
         }
     }
 
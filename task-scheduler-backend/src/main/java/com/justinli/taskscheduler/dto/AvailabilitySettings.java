@@ -0,0 +1,37 @@
+package com.justinli.taskscheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilitySettings {
+
+    private List<Window> windows = new ArrayList<>();
+
+    private List<DateException> exceptions = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Window {
+        private List<String> days; // MONDAY, TUESDAY, ...
+        private String start; // HH:mm
+        private String end; // HH:mm, at or before start runs overnight
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DateException {
+        private String date; // ISO date
+        private String start; // omit start/end for a day off
+        private String end;
+        private String description;
+    }
+}
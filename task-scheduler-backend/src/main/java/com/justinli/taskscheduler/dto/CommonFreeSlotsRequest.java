@@ -0,0 +1,27 @@
+package com.justinli.taskscheduler.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class CommonFreeSlotsRequest {
+
+    private List<String> participants; // calendar IDs or user emails (primary calendars)
+
+    private int durationMinutes = 30;
+
+    private String searchStartTime;
+
+    private String searchEndTime;
+
+    private String timeZone;
+
+    private int workStartHour = 9;
+
+    private int workEndHour = 17;
+
+    private int maxResults = 10;
+}
@@ -0,0 +1,16 @@
+package com.justinli.taskscheduler.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class CommonFreeSlotsResponse {
+    private int participantCount;
+    private List<String> unavailableParticipants;
+    private List<Map<String, ZonedDateTime>> slots;
+}
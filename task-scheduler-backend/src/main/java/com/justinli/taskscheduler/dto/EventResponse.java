@@ -0,0 +1,95 @@
+package com.justinli.taskscheduler.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The fields of a Google {@link Event} the UI actually reads. Written field by field by
+ * {@link Writer} instead of bean introspection, and null fields are left out.
+ */
+@Getter
+@Setter
+@JsonSerialize(using = EventResponse.Writer.class)
+public class EventResponse {
+
+    private String id;
+    private String summary;
+    private String description;
+    private String location;
+    private String status;
+    private String start; // RFC 3339 date-time, or yyyy-MM-dd for all-day events
+    private String end;
+    private boolean allDay;
+    private String recurringEventId;
+    private String htmlLink;
+
+    public static EventResponse fromEvent(Event event) {
+        EventResponse response = new EventResponse();
+        response.setId(event.getId());
+        response.setSummary(event.getSummary());
+        response.setDescription(event.getDescription());
+        response.setLocation(event.getLocation());
+        response.setStatus(event.getStatus());
+        response.setStart(format(event.getStart()));
+        response.setEnd(format(event.getEnd()));
+        response.setAllDay(event.getStart() != null && event.getStart().getDateTime() == null);
+        response.setRecurringEventId(event.getRecurringEventId());
+        response.setHtmlLink(event.getHtmlLink());
+        return response;
+    }
+
+    public static List<EventResponse> fromEvents(List<Event> events) {
+        if (events == null) {
+            return List.of();
+        }
+        return events.stream().map(EventResponse::fromEvent).toList();
+    }
+
+    private static String format(EventDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        if (time.getDateTime() != null) {
+            return time.getDateTime().toStringRfc3339();
+        }
+        return time.getDate() != null ? time.getDate().toStringRfc3339() : null;
+    }
+
+    static class Writer extends StdSerializer<EventResponse> {
+
+        Writer() {
+            super(EventResponse.class);
+        }
+
+        @Override
+        public void serialize(EventResponse event, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeField(gen, "id", event.id);
+            writeField(gen, "summary", event.summary);
+            writeField(gen, "description", event.description);
+            writeField(gen, "location", event.location);
+            writeField(gen, "status", event.status);
+            writeField(gen, "start", event.start);
+            writeField(gen, "end", event.end);
+            gen.writeBooleanField("allDay", event.allDay);
+            writeField(gen, "recurringEventId", event.recurringEventId);
+            writeField(gen, "htmlLink", event.htmlLink);
+            gen.writeEndObject();
+        }
+
+        private static void writeField(JsonGenerator gen, String name, String value) throws IOException {
+            if (value != null) {
+                gen.writeStringField(name, value);
+            }
+        }
+    }
+}
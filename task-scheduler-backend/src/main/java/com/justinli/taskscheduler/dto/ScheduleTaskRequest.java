@@ -3,6 +3,7 @@ package com.justinli.taskscheduler.dto;
 import java.util.List;
 
 public class ScheduleTaskRequest {
+    private Long taskId; // optional: schedule an existing task instead of creating one
     private String calendarId;
     private String taskSummary;
     private String taskDescription;
@@ -15,6 +16,19 @@ public class ScheduleTaskRequest {
     private int workEndHour;
     private List<String> conflictCalendarIds;
     private int breakTimeMinutes;
+    private String plan; // optional: id of a proposal from /schedule-task/proposals to commit
+    private String allocator; // optional: first-fit (default), best-fit, fill-gaps or spread
+    private Double minSessionHours; // fill-gaps only: shortest session worth placing, defaults to 0.5
+    private String objective; // proposals only: BALANCED (default), EARLIEST_FINISH, FEWEST_SESSIONS, ...
+    private int maxProposals; // proposals only: defaults to 5
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
 
     public String getCalendarId() {
         return calendarId;
@@ -111,4 +125,44 @@ public class ScheduleTaskRequest {
     public void setBreakTimeMinutes(int breakTimeMinutes) {
         this.breakTimeMinutes = breakTimeMinutes;
     }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public String getAllocator() {
+        return allocator;
+    }
+
+    public void setAllocator(String allocator) {
+        this.allocator = allocator;
+    }
+
+    public Double getMinSessionHours() {
+        return minSessionHours;
+    }
+
+    public void setMinSessionHours(Double minSessionHours) {
+        this.minSessionHours = minSessionHours;
+    }
+
+    public String getObjective() {
+        return objective;
+    }
+
+    public void setObjective(String objective) {
+        this.objective = objective;
+    }
+
+    public int getMaxProposals() {
+        return maxProposals;
+    }
+
+    public void setMaxProposals(int maxProposals) {
+        this.maxProposals = maxProposals;
+    }
 }
@@ -29,4 +29,6 @@ public class TaskRequest {
     private Integer workHoursEnd; // defaults to 17 if not provided
 
     private String calendarId; // defaults to "primary" if not provided
+
+    private String status; // updates only: PENDING, SCHEDULED, IN_PROGRESS, COMPLETED, FAILED
 }
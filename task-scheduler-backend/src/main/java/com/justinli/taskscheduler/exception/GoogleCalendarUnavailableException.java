@@ -0,0 +1,27 @@
+package com.justinli.taskscheduler.exception;
+
+import java.time.Duration;
+
+/**
+ * A Google API call was not attempted, because its circuit is open or the Google call pool is full,
+ * or a calendar that a scheduling decision depends on couldn't be read. Answered with 503 and a
+ * Retry-After header.
+ */
+public class GoogleCalendarUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public GoogleCalendarUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public GoogleCalendarUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.justinli.taskscheduler.exception;
+
+/**
+ * Concurrent scheduling requests for the same user kept claiming the same time. Answered with 409
+ * and a Retry-After header; the request can be retried as is.
+ */
+public class SchedulingConflictException extends RuntimeException {
+    public SchedulingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.justinli.taskscheduler.journal;
+
+import com.justinli.taskscheduler.model.CalendarOutboxEntry;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the {@link SchedulingJournal}: what happened to a calendar write, identified by its
+ * outbox idempotency key. {@code sequence} and {@code recordedAt} are assigned on append.
+ */
+public record JournalRecord(
+    long sequence,
+    Instant recordedAt,
+    Type type,
+    String key,
+    String operation,
+    String userEmail,
+    String calendarId,
+    String googleEventId,
+    LocalDateTime startTime,
+    LocalDateTime endTime,
+    String timeZone,
+    String detail // ETag for APPLIED, reason for FAILED
+) {
+
+    public enum Type {
+        PLANNED,   // committed to the outbox, or its times changed while still queued
+        APPLIED,   // Google accepted the write
+        FAILED,    // given up on
+        CANCELLED  // dropped before it was sent
+    }
+
+    public static JournalRecord of(Type type, CalendarOutboxEntry entry, String detail) {
+        return new JournalRecord(0, null, type, entry.getIdempotencyKey(), entry.getOperation().name(),
+            entry.getUser().getEmail(), entry.getCalendarId(), entry.getGoogleEventId(),
+            entry.getStartTime(), entry.getEndTime(), entry.getTimeZone(), detail);
+    }
+
+    public JournalRecord withType(Type newType, String newDetail) {
+        return new JournalRecord(0, null, newType, key, operation, userEmail, calendarId, googleEventId,
+            startTime, endTime, timeZone, newDetail);
+    }
+
+    JournalRecord withPosition(long newSequence, Instant newRecordedAt) {
+        return new JournalRecord(newSequence, newRecordedAt, type, key, operation, userEmail, calendarId,
+            googleEventId, startTime, endTime, timeZone, detail);
+    }
+}
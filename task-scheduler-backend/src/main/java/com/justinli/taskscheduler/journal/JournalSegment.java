@@ -0,0 +1,198 @@
+package com.justinli.taskscheduler.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One journal file, mapped into memory at its full, fixed size. After an 8-byte header come records
+ * of {@code [int length][int CRC-32C][body]}; a zero length marks the end. A record cut short by a
+ * crash fails its checksum, so reading stops at the last complete record.
+ */
+final class JournalSegment {
+
+    static final int HEADER_BYTES = 8;
+    private static final int MAGIC = 0x534a4e4c; // "SJNL"
+    private static final int VERSION = 1;
+    private static final int RECORD_OVERHEAD = 8;
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long firstSequence;
+    private int writePosition;
+    private int forcedPosition; // guarded by the journal's force lock
+
+    private JournalSegment(Path path, MappedByteBuffer buffer, long firstSequence, int writePosition) {
+        this.path = path;
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+        this.writePosition = writePosition;
+        this.forcedPosition = writePosition;
+    }
+
+    static JournalSegment create(Path path, long firstSequence, int size) throws IOException {
+        MappedByteBuffer buffer = map(path, size, StandardOpenOption.CREATE_NEW);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.force(0, HEADER_BYTES);
+        return new JournalSegment(path, buffer, firstSequence, HEADER_BYTES);
+    }
+
+    /**
+     * Maps an existing segment and reads its records into {@code records}. Anything after the last
+     * complete record is zeroed, so appends can continue from there.
+     */
+    static JournalSegment open(Path path, long firstSequence, List<JournalRecord> records) throws IOException {
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+        MappedByteBuffer buffer = map(path, (int) size, StandardOpenOption.READ);
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a scheduling journal segment: " + path);
+        }
+        int position = HEADER_BYTES;
+        long expectedSequence = firstSequence;
+        while (position + RECORD_OVERHEAD <= size) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_OVERHEAD + length > size) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(position + RECORD_OVERHEAD, length);
+            if (crc(body) != buffer.getInt(position + 4)) {
+                break;
+            }
+            JournalRecord record = decode(body);
+            if (record.sequence() != expectedSequence) {
+                break; // leftovers of an earlier, longer write
+            }
+            records.add(record);
+            expectedSequence++;
+            position += RECORD_OVERHEAD + length;
+        }
+        for (int i = position; i < size; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+        return new JournalSegment(path, buffer, firstSequence, position);
+    }
+
+    private static MappedByteBuffer map(Path path, int size, StandardOpenOption extraOption) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, extraOption)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Writes the encoded record if it fits, returning false when the segment is full.
+     */
+    boolean tryAppend(byte[] body) {
+        int end = writePosition + RECORD_OVERHEAD + body.length;
+        if (end > buffer.capacity()) {
+            return false;
+        }
+        buffer.put(writePosition + RECORD_OVERHEAD, body);
+        buffer.putInt(writePosition + 4, crc(ByteBuffer.wrap(body)));
+        // Length last, so a reader never sees a length whose body has not been written
+        buffer.putInt(writePosition, body.length);
+        writePosition = end;
+        return true;
+    }
+
+    static int maxBodyBytes(int segmentSize) {
+        return segmentSize - HEADER_BYTES - RECORD_OVERHEAD;
+    }
+
+    // Caller holds the force lock
+    void forceTo(int position) {
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    void forceAll() {
+        buffer.force();
+    }
+
+    static byte[] encode(JournalRecord record) {
+        List<byte[]> strings = new ArrayList<>();
+        for (Object value : new Object[] {record.key(), record.operation(), record.userEmail(), record.calendarId(),
+                record.googleEventId(), record.startTime(), record.endTime(), record.timeZone(), record.detail()}) {
+            strings.add(value != null ? value.toString().getBytes(StandardCharsets.UTF_8) : null);
+        }
+        int size = 8 + 8 + 1;
+        for (byte[] string : strings) {
+            size += 4 + (string != null ? string.length : 0);
+        }
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.putLong(record.sequence());
+        body.putLong(record.recordedAt().toEpochMilli());
+        body.put((byte) record.type().ordinal());
+        for (byte[] string : strings) {
+            body.putInt(string != null ? string.length : -1);
+            if (string != null) {
+                body.put(string);
+            }
+        }
+        return body.array();
+    }
+
+    private static JournalRecord decode(ByteBuffer body) {
+        long sequence = body.getLong();
+        Instant recordedAt = Instant.ofEpochMilli(body.getLong());
+        JournalRecord.Type type = TYPES[body.get()];
+        String key = string(body);
+        String operation = string(body);
+        String userEmail = string(body);
+        String calendarId = string(body);
+        String googleEventId = string(body);
+        String startTime = string(body);
+        String endTime = string(body);
+        String timeZone = string(body);
+        String detail = string(body);
+        return new JournalRecord(sequence, recordedAt, type, key, operation, userEmail, calendarId, googleEventId,
+            startTime != null ? LocalDateTime.parse(startTime) : null,
+            endTime != null ? LocalDateTime.parse(endTime) : null,
+            timeZone, detail);
+    }
+
+    private static String string(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+}
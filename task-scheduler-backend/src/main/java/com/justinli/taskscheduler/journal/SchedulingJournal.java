@@ -0,0 +1,352 @@
+package com.justinli.taskscheduler.journal;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of calendar writes, kept in memory-mapped segment files outside the database:
+ * planned writes are recorded when the scheduling transaction commits, and their outcome once Google
+ * has answered. After a crash, or with the in-memory database gone, {@code JournalReconciler} compares
+ * the writes left open with Google.
+ *
+ * An append is a copy into the mapped segment. How soon it reaches the disk depends on
+ * {@code app.journal.fsync}: {@code always} makes committing transactions wait for it, sharing one
+ * flush among all transactions waiting at the same time (group commit); {@code interval} flushes in the
+ * background every {@code app.journal.fsync-interval-ms}; {@code never} leaves it to the OS.
+ *
+ * At most {@code app.journal.max-segments} segments are kept. Writes still open in the oldest segment
+ * are copied forward into the newest before it is deleted, so they survive rotation.
+ */
+@Component
+public class SchedulingJournal {
+
+    public enum FsyncPolicy {
+        ALWAYS,
+        INTERVAL,
+        NEVER
+    }
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int MAX_DETAIL_LENGTH = 1000;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final Object appendLock = new Object();
+    private final Object forceLock = new Object();
+    private final List<JournalSegment> segments = new ArrayList<>(); // oldest first; the last one is written
+    private long nextSequence = 1;
+    private long appendedBytes; // guarded by appendLock
+    private long durableBytes; // guarded by forceLock
+    private final Map<String, JournalRecord> open = new LinkedHashMap<>(); // latest plan per open write; guarded by appendLock
+    private final List<JournalRecord> openAtStartup;
+
+    public SchedulingJournal(@Value("${app.journal.enabled:true}") boolean enabled,
+                             @Value("${app.journal.dir:data/journal}") String directory,
+                             @Value("${app.journal.segment-size-bytes:16777216}") int segmentSize,
+                             @Value("${app.journal.max-segments:8}") int maxSegments,
+                             @Value("${app.journal.fsync:always}") String fsyncPolicy) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, maxSegments);
+        this.fsyncPolicy = FsyncPolicy.valueOf(fsyncPolicy.trim().toUpperCase(Locale.ROOT));
+        this.openAtStartup = enabled ? open() : List.of();
+    }
+
+    /**
+     * Writes planned before this process started that have no outcome yet, latest plan per write.
+     */
+    public List<JournalRecord> openAtStartup() {
+        return openAtStartup;
+    }
+
+    /**
+     * Appends the record when the current transaction commits, or right away outside of one. With
+     * {@code fsync=always} the commit waits until the record is on disk, and fails if it cannot be written.
+     * Should the commit fail after that, the writes are journaled back to how they were before.
+     */
+    public void appendAtCommit(JournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            awaitDurable(append(List.of(record), null));
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRecords pending && pending.owner() == this) {
+                pending.records.add(record);
+                return;
+            }
+        }
+        PendingRecords pending = new PendingRecords();
+        pending.records.add(record);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    /**
+     * Appends an outcome without waiting for the disk: if it is lost, reconciliation asks Google instead.
+     */
+    public void append(JournalRecord record) {
+        if (enabled) {
+            append(List.of(record), null);
+        }
+    }
+
+    /**
+     * Returns the journal position just past the records, for awaitDurable. {@code replaced}, if given,
+     * receives each key's open plan (or null) from before the first of these records.
+     */
+    private long append(List<JournalRecord> records, Map<String, JournalRecord> replaced) {
+        synchronized (appendLock) {
+            Instant now = Instant.now();
+            for (JournalRecord record : records) {
+                if (replaced != null && !replaced.containsKey(record.key())) {
+                    replaced.put(record.key(), open.get(record.key()));
+                }
+                String detail = record.detail();
+                if (detail != null && detail.length() > MAX_DETAIL_LENGTH) {
+                    record = record.withType(record.type(), detail.substring(0, MAX_DETAIL_LENGTH));
+                }
+                write(record, now);
+            }
+            return appendedBytes;
+        }
+    }
+
+    // Caller holds appendLock
+    private void write(JournalRecord record, Instant recordedAt) {
+        while (true) {
+            JournalRecord positioned = record.withPosition(nextSequence, recordedAt);
+            byte[] body = JournalSegment.encode(positioned);
+            if (body.length > JournalSegment.maxBodyBytes(segmentSize)) {
+                throw new IllegalArgumentException("Journal record of " + body.length + " bytes exceeds the segment size");
+            }
+            if (segments.get(segments.size() - 1).tryAppend(body)) {
+                written(positioned, body);
+                return;
+            }
+            rotate(); // may copy open writes forward, so the record is positioned again
+        }
+    }
+
+    // Caller holds appendLock
+    private void written(JournalRecord record, byte[] body) {
+        nextSequence++;
+        appendedBytes += body.length + 8;
+        open.remove(record.key()); // re-inserted at the end, keeping journal order
+        if (record.type() == JournalRecord.Type.PLANNED) {
+            open.put(record.key(), record);
+        }
+    }
+
+    /**
+     * Returns once everything up to {@code position} is on disk, when the policy is {@code always}.
+     * Whoever flushes first flushes for every append before it, so concurrent callers share one flush.
+     */
+    private void awaitDurable(long position) {
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durableBytes >= position) {
+                return;
+            }
+            force();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.journal.fsync-interval-ms:200}")
+    public void flush() {
+        if (enabled && fsyncPolicy == FsyncPolicy.INTERVAL) {
+            synchronized (forceLock) {
+                force();
+            }
+        }
+    }
+
+    // Caller holds forceLock. Segments before the current one were flushed when they were rotated out
+    private void force() {
+        JournalSegment current;
+        int position;
+        long target;
+        synchronized (appendLock) {
+            current = segments.get(segments.size() - 1);
+            position = current.writePosition();
+            target = appendedBytes;
+        }
+        current.forceTo(position);
+        durableBytes = target;
+    }
+
+    // Caller holds appendLock
+    private void rotate() {
+        JournalSegment full = segments.get(segments.size() - 1);
+        full.forceAll();
+        JournalSegment next;
+        try {
+            next = JournalSegment.create(segmentPath(nextSequence), nextSequence, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment in " + directory, e);
+        }
+        segments.add(next);
+        while (segments.size() > maxSegments) {
+            JournalSegment oldest = segments.get(0);
+            // The in-memory database may be gone after a restart, so open writes must not leave the journal
+            if (!carryForward(segments.get(1).firstSequence(), next)) {
+                System.err.println("Keeping journal segment " + oldest.path() + ": too many open writes to copy forward");
+                break;
+            }
+            next.forceAll(); // the copies are on disk before the originals go
+            segments.remove(0);
+            try {
+                Files.deleteIfExists(oldest.path());
+            } catch (IOException e) {
+                System.err.println("Could not delete journal segment " + oldest.path() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copies the open writes recorded before {@code endSequence} into {@code target}, filling it at
+     * most halfway so the append that caused the rotation still fits. Returns false if not all fit.
+     */
+    private boolean carryForward(long endSequence, JournalSegment target) {
+        List<JournalRecord> carried = open.values().stream()
+            .filter(record -> record.sequence() < endSequence)
+            .toList();
+        for (JournalRecord record : carried) {
+            JournalRecord copy = record.withPosition(nextSequence, record.recordedAt());
+            byte[] body = JournalSegment.encode(copy);
+            if (target.writePosition() + body.length + 8 > segmentSize / 2 || !target.tryAppend(body)) {
+                return false;
+            }
+            written(copy, body);
+        }
+        return true;
+    }
+
+    private List<JournalRecord> open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> paths;
+            try (Stream<Path> files = Files.list(directory)) {
+                paths = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                        && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted() // names carry the zero-padded first sequence
+                    .toList();
+            }
+            List<JournalRecord> records = new ArrayList<>();
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                long firstSequence = Long.parseLong(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                records.clear();
+                JournalSegment segment = JournalSegment.open(path, firstSequence, records);
+                segments.add(segment);
+                for (JournalRecord record : records) {
+                    if (record.type() == JournalRecord.Type.PLANNED) {
+                        open.remove(record.key()); // keep the latest plan, in journal order
+                        open.put(record.key(), record);
+                    } else {
+                        open.remove(record.key());
+                    }
+                }
+                if (!records.isEmpty()) {
+                    nextSequence = records.get(records.size() - 1).sequence() + 1;
+                } else {
+                    nextSequence = Math.max(nextSequence, firstSequence);
+                }
+            }
+            if (segments.isEmpty()) {
+                segments.add(JournalSegment.create(segmentPath(nextSequence), nextSequence, segmentSize));
+            }
+            System.out.println("Scheduling journal in " + directory.toAbsolutePath() + ": " + segments.size()
+                + " segment(s), next sequence " + nextSequence + ", " + open.size() + " open write(s)");
+            return List.copyOf(open.values());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the scheduling journal in " + directory, e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (forceLock) {
+            force();
+        }
+    }
+
+    private final class PendingRecords implements TransactionSynchronization {
+
+        private final List<JournalRecord> records = new ArrayList<>();
+        private final Map<String, JournalRecord> replaced = new HashMap<>();
+        private boolean appended;
+
+        SchedulingJournal owner() {
+            return SchedulingJournal.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            long position = append(records, replaced);
+            appended = true;
+            awaitDurable(position);
+        }
+
+        // The records were journaled before the commit failed: each write goes back to its earlier plan,
+        // or is cancelled if it had none, so reconciliation doesn't look for it in Google
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK || !appended) {
+                return;
+            }
+            List<JournalRecord> undo = new ArrayList<>();
+            for (Map.Entry<String, JournalRecord> entry : replaced.entrySet()) {
+                if (entry.getValue() != null) {
+                    undo.add(entry.getValue());
+                } else {
+                    records.stream()
+                        .filter(record -> record.key().equals(entry.getKey()))
+                        .findFirst()
+                        .ifPresent(record -> undo.add(record.withType(JournalRecord.Type.CANCELLED,
+                            "scheduling transaction rolled back")));
+                }
+            }
+            try {
+                awaitDurable(append(undo, null));
+            } catch (RuntimeException e) {
+                System.err.println("Could not journal a rolled back scheduling transaction: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "availability_exceptions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exception_date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "start_minute")
+    private Integer startMinute; // null together with endMinute = unavailable all day
+
+    @Column(name = "end_minute")
+    private Integer endMinute;
+
+    private String description; // e.g. "Thanksgiving"
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+}
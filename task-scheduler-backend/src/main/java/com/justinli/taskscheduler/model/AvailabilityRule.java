@@ -0,0 +1,53 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Entity
+@Table(name = "availability_rules")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "days_mask", nullable = false)
+    private Integer daysMask; // bit 0 = Monday ... bit 6 = Sunday
+
+    @Column(name = "start_minute", nullable = false)
+    private Integer startMinute; // minutes from midnight
+
+    @Column(name = "end_minute", nullable = false)
+    private Integer endMinute; // at or before start means the window runs overnight
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    public Set<DayOfWeek> getDays() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((daysMask & (1 << (day.getValue() - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    public static int toMask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,30 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts the commits that replaced a user's availability settings, so every node can tell whether
+ * its compiled template is still current with a one-row read.
+ */
+@Entity
+@Table(name = "availability_versions", uniqueConstraints = @UniqueConstraint(
+    name = "uk_availability_versions_user", columnNames = "user_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Long version;
+}
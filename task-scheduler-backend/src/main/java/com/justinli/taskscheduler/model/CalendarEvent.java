@@ -1,14 +1,18 @@
 package com.justinli.taskscheduler.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "calendar_events")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,9 +40,16 @@ public class CalendarEvent {
     @Column(name = "duration_hours", nullable = false)
     private Double durationHours;
 
+    @Column(name = "time_zone")
+    private String timeZone; // zone startTime/endTime are expressed in
+
+    @Column(name = "etag")
+    private String etag; // Google ETag from our last write, sent as If-Match on the next one
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "task_id", nullable = false)
     private Task task;
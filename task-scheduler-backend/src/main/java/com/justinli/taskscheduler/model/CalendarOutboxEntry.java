@@ -0,0 +1,112 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Google Calendar write recorded in the same transaction as the local rows it belongs to,
+ * and applied later by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "calendar_outbox", indexes = {
+    @Index(name = "idx_calendar_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(name = "calendar_id", nullable = false)
+    private String calendarId;
+
+    @Column(name = "google_event_id", nullable = false)
+    private String googleEventId;
+
+    private String summary;
+
+    @Column(length = 2000)
+    private String description;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime; // local time in timeZone
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "time_zone")
+    private String timeZone;
+
+    @Column(name = "if_match_etag")
+    private String ifMatchEtag; // PATCH/DELETE: the event's ETag when the write was planned
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "claimed_by")
+    private String claimedBy; // dispatcher node sending the write, until claimedUntil
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Version
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    public enum Operation {
+        INSERT_EVENT,
+        PATCH_EVENT,
+        DELETE_EVENT
+    }
+
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+        if (status == null) {
+            status = Status.PENDING;
+        }
+    }
+}
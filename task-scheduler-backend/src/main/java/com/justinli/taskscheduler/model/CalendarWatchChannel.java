@@ -0,0 +1,56 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Google Calendar push notification channel ({@code events.watch}) for one calendar. While a channel
+ * is live, Google calls our webhook whenever the calendar changes, so cached reads stay valid until then.
+ */
+@Entity
+@Table(name = "calendar_watch_channels", indexes = {
+    @Index(name = "idx_calendar_watch_channels_expiration", columnList = "expiration")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarWatchChannel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "channel_id", nullable = false, unique = true)
+    private String channelId; // our ID, echoed back in X-Goog-Channel-ID
+
+    @Column(name = "resource_id")
+    private String resourceId; // Google's ID for the watched resource, needed to stop the channel
+
+    @Column(name = "calendar_id", nullable = false)
+    private String calendarId;
+
+    @Column(nullable = false)
+    private String token; // secret echoed back in X-Goog-Channel-Token
+
+    @Column(nullable = false)
+    private LocalDateTime expiration;
+
+    @Column(name = "last_notified_at")
+    private LocalDateTime lastNotifiedAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,40 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Completed tasks of one user per completion day, split by whether they were finished by their due date.
+ */
+@Entity
+@Table(name = "completion_rollups", uniqueConstraints = @UniqueConstraint(
+    name = "uk_completion_rollups_bucket", columnNames = {"user_id", "rollup_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "on_time", nullable = false)
+    private Long onTime;
+
+    @Column(nullable = false)
+    private Long late;
+
+    @Column(name = "no_due_date", nullable = false)
+    private Long noDueDate;
+}
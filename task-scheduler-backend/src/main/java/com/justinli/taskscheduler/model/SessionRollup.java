@@ -0,0 +1,46 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Scheduled session time of one user, bucketed by day, calendar and task priority. Kept up to date
+ * as sessions are created, resized and removed, so dashboards read buckets instead of scanning
+ * {@code calendar_events}.
+ */
+@Entity
+@Table(name = "session_rollups", uniqueConstraints = @UniqueConstraint(
+    name = "uk_session_rollups_bucket", columnNames = {"user_id", "rollup_date", "calendar_id", "priority"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day; // local date of the session start, in the session's zone
+
+    @Column(name = "calendar_id", nullable = false)
+    private String calendarId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Task.TaskPriority priority; // tasks without one count as MEDIUM
+
+    @Column(nullable = false)
+    private Long minutes;
+
+    @Column(nullable = false)
+    private Long sessions;
+}
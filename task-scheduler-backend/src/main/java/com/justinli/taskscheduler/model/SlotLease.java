@@ -0,0 +1,43 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One five-minute quantum of a user's time held by a scheduling request until it commits or the lease
+ * expires. The unique key on (user, quantum) is what keeps two nodes from holding the same time: the
+ * second insert fails and that request plans again.
+ */
+@Entity
+@Table(name = "slot_leases",
+    uniqueConstraints = @UniqueConstraint(name = "uk_slot_leases_user_quantum", columnNames = {"user_id", "quantum"}),
+    indexes = {
+        @Index(name = "idx_slot_leases_lease_id", columnList = "lease_id"),
+        @Index(name = "idx_slot_leases_expires_at", columnList = "expires_at")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Long quantum; // epoch seconds / 300, see AvailabilityIndex.QUANTUM_MINUTES
+
+    @Column(name = "lease_id", nullable = false, length = 36)
+    private String leaseId; // shared by all quanta of one request
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt; // an instant, so nodes in different zones agree on it
+}
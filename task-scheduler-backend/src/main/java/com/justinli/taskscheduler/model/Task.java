@@ -1,11 +1,14 @@
 package com.justinli.taskscheduler.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "tasks")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,6 +57,12 @@ public class Task {
     @Column(name = "calendar_id")
     private String calendarId; // which Google Calendar to use
 
+    @Column(name = "conflict_calendar_ids", length = 1000)
+    private String conflictCalendarIds; // comma-separated calendars checked for conflicts; null: calendarId only
+
+    @Column(name = "break_time_minutes")
+    private Integer breakTimeMinutes; // kept free after busy time when scheduling
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -62,11 +72,16 @@ public class Task {
     @Column(name = "scheduled_at")
     private LocalDateTime scheduledAt;
 
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt; // set while status is COMPLETED
+
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<CalendarEvent> calendarEvents = new ArrayList<>();
 
     public enum TaskStatus {
@@ -0,0 +1,30 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counts the commits that changed the name or description of a user's tasks, so a node can tell
+ * whether its search index missed a write made elsewhere without reading the tasks.
+ */
+@Entity
+@Table(name = "task_search_versions", uniqueConstraints = @UniqueConstraint(
+    name = "uk_task_search_versions_user", columnNames = "user_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSearchVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Long version;
+}
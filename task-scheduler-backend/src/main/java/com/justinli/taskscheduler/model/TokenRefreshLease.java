@@ -0,0 +1,36 @@
+package com.justinli.taskscheduler.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Which node may refresh a user's Google token, until {@code expiresAt}. One row per user: a node
+ * takes an expired lease with a conditional update, and the unique key decides between two nodes
+ * creating the first one.
+ */
+@Entity
+@Table(name = "token_refresh_leases", uniqueConstraints = @UniqueConstraint(
+    name = "uk_token_refresh_leases_user", columnNames = "user_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRefreshLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, length = 36)
+    private String node;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt; // an instant, so nodes in different zones agree on it
+}
@@ -0,0 +1,16 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.AvailabilityException;
+import com.justinli.taskscheduler.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AvailabilityExceptionRepository extends JpaRepository<AvailabilityException, Long> {
+
+    List<AvailabilityException> findByUserOrderByDateAsc(User user);
+
+    void deleteByUser(User user);
+}
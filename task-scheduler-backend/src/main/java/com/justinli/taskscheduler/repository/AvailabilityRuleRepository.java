@@ -0,0 +1,16 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.AvailabilityRule;
+import com.justinli.taskscheduler.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AvailabilityRuleRepository extends JpaRepository<AvailabilityRule, Long> {
+
+    List<AvailabilityRule> findByUser(User user);
+
+    void deleteByUser(User user);
+}
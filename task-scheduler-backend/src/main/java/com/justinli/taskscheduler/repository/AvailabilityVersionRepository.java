@@ -0,0 +1,22 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.AvailabilityVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AvailabilityVersionRepository extends JpaRepository<AvailabilityVersion, Long> {
+
+    // Returns 0 when the user has no row yet
+    @Modifying
+    @Query("update AvailabilityVersion v set v.version = v.version + 1 where v.user.id = :userId")
+    int increment(@Param("userId") Long userId);
+
+    @Query("select v.version from AvailabilityVersion v where v.user.id = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+}
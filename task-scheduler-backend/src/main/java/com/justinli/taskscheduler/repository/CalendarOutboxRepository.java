@@ -0,0 +1,43 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.CalendarOutboxEntry;
+import com.justinli.taskscheduler.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CalendarOutboxRepository extends JpaRepository<CalendarOutboxEntry, Long> {
+
+    // Due rows no node holds a claim on, with the owning user, whose Google credentials the dispatcher writes with
+    @EntityGraph(attributePaths = "user")
+    @Query("select e from CalendarOutboxEntry e where e.status = :status and e.nextAttemptAt <= :now " +
+           "and (e.claimedUntil is null or e.claimedUntil < :now) order by e.id asc")
+    List<CalendarOutboxEntry> findUnclaimedDue(@Param("status") CalendarOutboxEntry.Status status,
+                                               @Param("now") LocalDateTime now, Pageable pageable);
+
+    // 1 if the node now holds the row, 0 if it is no longer in that status or another node's claim hasn't expired
+    @Modifying
+    @Query("update CalendarOutboxEntry e set e.claimedBy = :node, e.claimedUntil = :until, e.version = e.version + 1 " +
+           "where e.id = :id and e.status = :status and (e.claimedUntil is null or e.claimedUntil < :now)")
+    int claim(@Param("id") Long id, @Param("status") CalendarOutboxEntry.Status status, @Param("node") String node,
+              @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    List<CalendarOutboxEntry> findByUserAndStatusAndOperation(
+        User user, CalendarOutboxEntry.Status status, CalendarOutboxEntry.Operation operation);
+
+    Optional<CalendarOutboxEntry> findFirstByGoogleEventIdAndStatusAndIdLessThanOrderByIdAsc(
+        String googleEventId, CalendarOutboxEntry.Status status, Long id);
+
+    List<CalendarOutboxEntry> findByGoogleEventIdAndStatus(String googleEventId, CalendarOutboxEntry.Status status);
+
+    Optional<CalendarOutboxEntry> findByIdempotencyKey(String idempotencyKey);
+}
@@ -0,0 +1,35 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.CalendarWatchChannel;
+import com.justinli.taskscheduler.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CalendarWatchChannelRepository extends JpaRepository<CalendarWatchChannel, Long> {
+
+    // Channel owners are needed outside a transaction (cache keys, background renewals)
+    @EntityGraph(attributePaths = "user")
+    Optional<CalendarWatchChannel> findByChannelId(String channelId);
+
+    Optional<CalendarWatchChannel> findFirstByUserAndCalendarIdOrderByExpirationDesc(User user, String calendarId);
+
+    List<CalendarWatchChannel> findByUser(User user);
+
+    // Latest notification on any of the user's channels for the calendar, whichever node received it
+    @Query("select max(c.lastNotifiedAt) from CalendarWatchChannel c where c.user.email = :email and c.calendarId = :calendarId")
+    Optional<LocalDateTime> findLastNotifiedAt(@Param("email") String userEmail, @Param("calendarId") String calendarId);
+
+    @EntityGraph(attributePaths = "user")
+    List<CalendarWatchChannel> findByExpirationAfter(LocalDateTime time);
+
+    @EntityGraph(attributePaths = "user")
+    List<CalendarWatchChannel> findByExpirationBefore(LocalDateTime time);
+}
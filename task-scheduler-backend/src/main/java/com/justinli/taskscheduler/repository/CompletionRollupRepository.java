@@ -0,0 +1,33 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.CompletionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CompletionRollupRepository extends JpaRepository<CompletionRollup, Long> {
+
+    // Returns 0 when the bucket does not exist yet
+    @Modifying
+    @Query("update CompletionRollup r set r.onTime = r.onTime + :onTime, r.late = r.late + :late, "
+        + "r.noDueDate = r.noDueDate + :noDueDate where r.user.id = :userId and r.day = :day")
+    int increment(@Param("userId") Long userId, @Param("day") LocalDate day, @Param("onTime") long onTime,
+                  @Param("late") long late, @Param("noDueDate") long noDueDate);
+
+    // Buckets whose counts have all gone back to zero are left out
+    @Query("select r from CompletionRollup r where r.user.id = :userId and r.day between :from and :to "
+        + "and (r.onTime <> 0 or r.late <> 0 or r.noDueDate <> 0) order by r.day")
+    List<CompletionRollup> findNonEmpty(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    // Zeroes rather than deletes, so buckets stay in place for the increments of a rebuild
+    @Modifying
+    @Query("update CompletionRollup r set r.onTime = 0, r.late = 0, r.noDueDate = 0 where r.user.id = :userId")
+    int resetByUserId(@Param("userId") Long userId);
+}
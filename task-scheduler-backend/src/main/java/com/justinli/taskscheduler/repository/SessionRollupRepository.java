@@ -0,0 +1,46 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.SessionRollup;
+import com.justinli.taskscheduler.model.Task;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SessionRollupRepository extends JpaRepository<SessionRollup, Long> {
+
+    // Returns 0 when the bucket does not exist yet
+    @Modifying
+    @Query("update SessionRollup r set r.minutes = r.minutes + :minutes, r.sessions = r.sessions + :sessions "
+        + "where r.user.id = :userId and r.day = :day and r.calendarId = :calendarId and r.priority = :priority")
+    int increment(@Param("userId") Long userId, @Param("day") LocalDate day, @Param("calendarId") String calendarId,
+                  @Param("priority") Task.TaskPriority priority, @Param("minutes") long minutes,
+                  @Param("sessions") long sessions);
+
+    @Query("select r.day, sum(r.minutes), sum(r.sessions) from SessionRollup r "
+        + "where r.user.id = :userId and r.day between :from and :to group by r.day "
+        + "having sum(r.sessions) <> 0 order by r.day")
+    List<Object[]> sumByDay(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select r.priority, sum(r.minutes), sum(r.sessions) from SessionRollup r "
+        + "where r.user.id = :userId and r.day between :from and :to group by r.priority "
+        + "having sum(r.sessions) <> 0 order by r.priority")
+    List<Object[]> sumByPriority(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+
+    @Query("select r.calendarId, sum(r.minutes), sum(r.sessions) from SessionRollup r "
+        + "where r.user.id = :userId and r.day between :from and :to group by r.calendarId "
+        + "having sum(r.sessions) <> 0 order by r.calendarId")
+    List<Object[]> sumByCalendar(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                 @Param("to") LocalDate to);
+
+    // Zeroes rather than deletes, so buckets stay in place for the increments of a rebuild
+    @Modifying
+    @Query("update SessionRollup r set r.minutes = 0, r.sessions = 0 where r.user.id = :userId")
+    int resetByUserId(@Param("userId") Long userId);
+}
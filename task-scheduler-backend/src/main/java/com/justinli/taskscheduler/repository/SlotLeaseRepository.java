@@ -0,0 +1,32 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.SlotLease;
+import com.justinli.taskscheduler.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SlotLeaseRepository extends JpaRepository<SlotLease, Long> {
+
+    List<SlotLease> findByUserAndQuantumBetweenAndExpiresAtAfterOrderByQuantumAsc(
+        User user, long fromQuantum, long toQuantum, Instant now);
+
+    @Modifying
+    @Query("delete from SlotLease l where l.user = :user and l.quantum between :from and :to and l.expiresAt <= :now")
+    int deleteExpired(@Param("user") User user, @Param("from") long fromQuantum, @Param("to") long toQuantum,
+                      @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from SlotLease l where l.leaseId = :leaseId")
+    int deleteByLeaseId(@Param("leaseId") String leaseId);
+
+    @Modifying
+    @Query("delete from SlotLease l where l.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
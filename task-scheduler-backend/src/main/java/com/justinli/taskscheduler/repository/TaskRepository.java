@@ -3,13 +3,16 @@ package com.justinli.taskscheduler.repository;
 import com.justinli.taskscheduler.model.Task;
 import com.justinli.taskscheduler.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
 
     List<Task> findByUser(User user);
 
@@ -18,4 +21,18 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByUserAndStatus(User user, Task.TaskStatus status);
 
     Optional<Task> findByIdAndUser(Long id, User user);
+
+    // Version columns only, so a conditional GET can be answered without loading the task graph
+    @Query("select t.id, t.updatedAt from Task t where t.user = :user order by t.id")
+    List<Object[]> findVersionsByUser(@Param("user") User user);
+
+    // Text and version for the search index, read from the database rather than the entity cache
+    @Query("select t.id, t.name, t.description, t.updatedAt from Task t where t.user = :user")
+    List<Object[]> findSearchFieldsByUser(@Param("user") User user);
+
+    @Query("select t.id, t.name, t.description, t.updatedAt from Task t where t.id in :ids")
+    List<Object[]> findSearchFieldsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select e.id, e.startTime, e.endTime, e.etag from CalendarEvent e where e.task.user = :user order by e.id")
+    List<Object[]> findEventVersionsByUser(@Param("user") User user);
 }
@@ -0,0 +1,12 @@
+package com.justinli.taskscheduler.repository;
+
+import java.util.List;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * PostgreSQL only: IDs of the user's tasks matching every word by full-text prefix or trigram
+     * similarity, best first.
+     */
+    List<Long> searchPostgres(Long userId, List<String> words, int limit);
+}
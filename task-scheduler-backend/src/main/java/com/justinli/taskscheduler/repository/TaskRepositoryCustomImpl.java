@@ -0,0 +1,47 @@
+package com.justinli.taskscheduler.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+/**
+ * Full-text and trigram search in PostgreSQL. The document expression matches the indexes that
+ * {@link com.justinli.taskscheduler.service.TaskSearchIndex} creates, so both conditions use them.
+ */
+class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    static final String DOCUMENT = "coalesce(t.name, '') || ' ' || coalesce(t.description, '')";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> searchPostgres(Long userId, List<String> words, int limit) {
+        // Words come from TaskSearchIndex.tokenize: letters and digits only, safe inside a tsquery
+        StringBuilder sql = new StringBuilder("select t.id from tasks t where t.user_id = :userId");
+        for (int i = 0; i < words.size(); i++) {
+            sql.append(" and (to_tsvector('simple', ").append(DOCUMENT).append(") @@ to_tsquery('simple', :prefix")
+                .append(i).append(") or :word").append(i).append(" <% (").append(DOCUMENT).append("))");
+        }
+        // Name matches rank above description matches, then the closest fuzzy match, then the newest task
+        sql.append(" order by ts_rank(setweight(to_tsvector('simple', coalesce(t.name, '')), 'A')")
+            .append(" || setweight(to_tsvector('simple', coalesce(t.description, '')), 'B'),")
+            .append(" to_tsquery('simple', :anyPrefix)) + word_similarity(:text, ").append(DOCUMENT).append(") desc,")
+            .append(" t.id desc limit :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Long.class)
+            .setParameter("userId", userId)
+            .setParameter("anyPrefix", String.join(" | ", words.stream().map(w -> w + ":*").toList()))
+            .setParameter("text", String.join(" ", words))
+            .setParameter("limit", limit);
+        for (int i = 0; i < words.size(); i++) {
+            query.setParameter("prefix" + i, words.get(i) + ":*");
+            query.setParameter("word" + i, words.get(i));
+        }
+        @SuppressWarnings("unchecked")
+        List<Long> ids = query.getResultList();
+        return ids;
+    }
+}
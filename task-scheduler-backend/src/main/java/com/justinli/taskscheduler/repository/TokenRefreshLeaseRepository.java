@@ -0,0 +1,25 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.TokenRefreshLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface TokenRefreshLeaseRepository extends JpaRepository<TokenRefreshLease, Long> {
+
+    // Returns 0 when the lease is held by a node or the user has no row yet
+    @Modifying
+    @Query("update TokenRefreshLease l set l.node = :node, l.expiresAt = :until "
+        + "where l.user.id = :userId and l.expiresAt <= :now")
+    int takeExpired(@Param("userId") Long userId, @Param("node") String node, @Param("until") Instant until,
+                    @Param("now") Instant now);
+
+    @Modifying
+    @Query("update TokenRefreshLease l set l.expiresAt = :until where l.user.id = :userId and l.node = :node")
+    int holdUntil(@Param("userId") Long userId, @Param("node") String node, @Param("until") Instant until);
+}
@@ -2,14 +2,34 @@ package com.justinli.taskscheduler.repository;
 
 import com.justinli.taskscheduler.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
+    // Implemented in UserRepositoryCustomImpl as a natural-id lookup, served from the second-level cache
+    @Override
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Users with a connected Google Calendar
+    List<User> findByGoogleRefreshTokenIsNotNull();
+
+    // Connected users whose access token expires before the given time (or whose expiry is unknown)
+    @Query("select u from User u where u.googleRefreshToken is not null "
+        + "and (u.googleTokenExpiry is null or u.googleTokenExpiry < :time)")
+    List<User> findWithGoogleTokenExpiringBefore(@Param("time") LocalDateTime time);
+
+    // From the database rather than the entity cache, e.g. to see a refresh made by another node
+    @Query("select u.googleTokenExpiry from User u where u.id = :id")
+    Optional<LocalDateTime> findGoogleTokenExpiry(@Param("id") Long id);
 }
@@ -0,0 +1,10 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    Optional<User> findByEmail(String email);
+}
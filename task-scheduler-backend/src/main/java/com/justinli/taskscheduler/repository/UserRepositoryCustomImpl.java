@@ -0,0 +1,26 @@
+package com.justinli.taskscheduler.repository;
+
+import com.justinli.taskscheduler.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+/**
+ * Email lookups by natural id: Hibernate resolves the email through the natural-id cache and the
+ * user through the entity cache, so repeated lookups don't reach the database. A derived query
+ * would always run SQL.
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(User.class)
+            .loadOptional(email);
+    }
+}
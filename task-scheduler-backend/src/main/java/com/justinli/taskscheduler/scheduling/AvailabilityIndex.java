@@ -0,0 +1,296 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bitmap view of a user's availability over a search horizon.
+ *
+ * Time is cut into 5-minute quanta starting at the (floored) horizon start. Two bitsets are kept:
+ * {@code work} marks quanta inside working windows and {@code busy} marks quanta covered by events.
+ * A quantum is free when {@code work & ~busy} is set, so "first N free minutes" is a word-level scan
+ * instead of walking events day by day. A year-long horizon fits in ~13 KB per bitset.
+ *
+ * Busy time is rounded outwards and working time inwards to the quantum grid, so the index never
+ * reports a slot that overlaps an event. Instances are not thread-safe.
+ *
+ * An index is built for one search and then dropped; none is kept per user.
+ * {@link com.justinli.taskscheduler.service.CalendarBusyCache} keeps the busy intervals behind it,
+ * and a push notification only says that a calendar changed, not which events, so a kept index could
+ * only be rebuilt, not patched. {@link #addBusy} and {@link #removeBusy} layer pending writes and held
+ * slots onto a fresh index.
+ */
+public class AvailabilityIndex {
+
+    public static final int QUANTUM_MINUTES = 5;
+    private static final long QUANTUM_SECONDS = QUANTUM_MINUTES * 60L;
+
+    private final ZoneId zone;
+    private final long originSecond;
+    private final int quanta;
+    private final int breakMinutes;
+    private final long[] work;
+    private final long[] busy;
+    private final List<int[]> windows = new ArrayList<>();
+    private final List<BusyInterval> busyIntervals = new ArrayList<>();
+
+    public AvailabilityIndex(ZonedDateTime horizonStart, ZonedDateTime horizonEnd, int breakMinutes) {
+        this.zone = horizonStart.getZone();
+        this.originSecond = Math.floorDiv(horizonStart.toEpochSecond(), QUANTUM_SECONDS) * QUANTUM_SECONDS;
+        long span = Math.max(0, horizonEnd.toEpochSecond() - originSecond);
+        this.quanta = (int) ((span + QUANTUM_SECONDS - 1) / QUANTUM_SECONDS);
+        this.breakMinutes = breakMinutes;
+        this.work = new long[(quanta + 63) >>> 6];
+        this.busy = new long[work.length];
+    }
+
+    /**
+     * Builds an index from fixed daily work hours. A {@code workEndHour} of 0 means midnight and an end
+     * hour before the start hour means the window runs overnight into the next day.
+     */
+    public static AvailabilityIndex build(ZonedDateTime searchStart, ZonedDateTime searchEnd,
+                                          int workStartHour, int workEndHour, int breakMinutes,
+                                          Collection<BusyInterval> busy) {
+        return build(searchStart, searchEnd, AvailabilityTemplate.fromWorkHours(workStartHour, workEndHour),
+            breakMinutes, busy);
+    }
+
+    public static AvailabilityIndex build(ZonedDateTime searchStart, ZonedDateTime searchEnd,
+                                          AvailabilityTemplate template, int breakMinutes,
+                                          Collection<BusyInterval> busy) {
+        AvailabilityIndex index = new AvailabilityIndex(searchStart, searchEnd, breakMinutes);
+        index.applyTemplate(template, searchStart, searchEnd);
+        for (BusyInterval interval : busy) {
+            index.addBusy(interval);
+        }
+        return index;
+    }
+
+    private void applyTemplate(AvailabilityTemplate template, ZonedDateTime searchStart, ZonedDateTime searchEnd) {
+        Instant horizonStart = searchStart.toInstant();
+        Instant horizonEnd = searchEnd.toInstant();
+        // Start a day early so an overnight window from the previous evening is not lost
+        LocalDate lastDay = searchEnd.withZoneSameInstant(zone).toLocalDate();
+        for (LocalDate day = searchStart.toLocalDate().minusDays(1); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            int[] windows = template.windowsFor(day);
+            for (int i = 0; i < windows.length; i += 2) {
+                Instant windowStart = atMinute(day, windows[i]);
+                Instant windowEnd = atMinute(day, windows[i + 1]);
+                addWorkWindow(
+                    windowStart.isBefore(horizonStart) ? horizonStart : windowStart,
+                    windowEnd.isAfter(horizonEnd) ? horizonEnd : windowEnd
+                );
+            }
+        }
+    }
+
+    // Wall-clock minute of a day (possibly past midnight) as an instant, so DST days keep their local hours
+    private Instant atMinute(LocalDate day, int minute) {
+        LocalDate date = day.plusDays(minute / AvailabilityTemplate.MINUTES_PER_DAY);
+        int minuteOfDay = minute % AvailabilityTemplate.MINUTES_PER_DAY;
+        return LocalDateTime.of(date, LocalTime.of(minuteOfDay / 60, minuteOfDay % 60)).atZone(zone).toInstant();
+    }
+
+    /**
+     * Marks [start, end) as working time. Free slots never span two windows, even when they touch.
+     */
+    public void addWorkWindow(Instant start, Instant end) {
+        int from = ceilQuantum(start);
+        int to = floorQuantum(end);
+        if (from >= to) {
+            return;
+        }
+        setRange(work, from, to);
+        windows.add(new int[]{from, to});
+    }
+
+    /**
+     * Marks an event (plus the configured break after it) as busy.
+     */
+    public void addBusy(BusyInterval interval) {
+        busyIntervals.add(interval);
+        markBusy(interval);
+    }
+
+    /**
+     * Removes a previously added event, re-marking any other events that overlapped it.
+     */
+    public void removeBusy(BusyInterval interval) {
+        if (!busyIntervals.remove(interval)) {
+            return;
+        }
+        int from = floorQuantum(interval.start());
+        int to = ceilQuantum(interval.end().plusSeconds(breakMinutes * 60L));
+        clearRange(busy, from, to);
+        for (BusyInterval other : busyIntervals) {
+            if (other.overlaps(toInstant(from).minusSeconds(breakMinutes * 60L), toInstant(to))) {
+                markBusy(other);
+            }
+        }
+    }
+
+    private void markBusy(BusyInterval interval) {
+        int from = floorQuantum(interval.start());
+        int to = ceilQuantum(interval.end().plusSeconds(breakMinutes * 60L));
+        if (from < to) {
+            setRange(busy, from, to);
+        }
+    }
+
+    /**
+     * ORs another index's busy quanta into this one, e.g. to intersect the free time of several people.
+     * Both indexes must cover the same horizon. Merged time cannot be removed again with {@link #removeBusy}.
+     */
+    public void mergeBusy(AvailabilityIndex other) {
+        if (other.originSecond != originSecond || other.quanta != quanta) {
+            throw new IllegalArgumentException("Cannot merge availability indexes with different horizons");
+        }
+        long[] source = other.busy;
+        for (int w = 0; w < busy.length; w++) {
+            busy[w] |= source[w];
+        }
+    }
+
+    /**
+     * All free runs of at least {@code minMinutes}, in chronological order, split at window boundaries.
+     */
+    public List<TimeSlot> freeSlots(int minMinutes) {
+        int minQuanta = Math.max(1, (minMinutes + QUANTUM_MINUTES - 1) / QUANTUM_MINUTES);
+        List<TimeSlot> slots = new ArrayList<>();
+        windows.sort(Comparator.comparingInt(w -> w[0]));
+        for (int[] window : windows) {
+            int limit = window[1];
+            int runStart = nextFree(window[0], limit);
+            while (runStart < limit) {
+                int runEnd = nextBusy(runStart, limit);
+                if (runEnd - runStart >= minQuanta) {
+                    slots.add(new TimeSlot(toZoned(runStart), toZoned(runEnd)));
+                }
+                runStart = nextFree(runEnd, limit);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * The earliest block of {@code minutes} contiguous free time starting at or after {@code from}.
+     */
+    public Optional<TimeSlot> findFirstFree(Instant from, int minutes) {
+        int needed = Math.max(1, (minutes + QUANTUM_MINUTES - 1) / QUANTUM_MINUTES);
+        int runStart = nextFree(ceilQuantum(from), quanta);
+        while (runStart < quanta) {
+            int runEnd = nextBusy(runStart, quanta);
+            if (runEnd - runStart >= needed) {
+                return Optional.of(new TimeSlot(toZoned(runStart), toZoned(runStart + needed)));
+            }
+            runStart = nextFree(runEnd, quanta);
+        }
+        return Optional.empty();
+    }
+
+    public boolean isFree(Instant start, Instant end) {
+        int from = floorQuantum(start);
+        int to = ceilQuantum(end);
+        return from < to && nextBusy(from, to) == to;
+    }
+
+    private long freeWord(int w) {
+        return work[w] & ~busy[w];
+    }
+
+    // Index of the first free quantum in [from, limit), or limit if none
+    private int nextFree(int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int w = from >>> 6;
+        int lastWord = (limit - 1) >>> 6;
+        long word = freeWord(w) & (-1L << from);
+        while (word == 0) {
+            if (++w > lastWord) {
+                return limit;
+            }
+            word = freeWord(w);
+        }
+        return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    // Index of the first non-free quantum in [from, limit), or limit if none
+    private int nextBusy(int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int w = from >>> 6;
+        int lastWord = (limit - 1) >>> 6;
+        long word = ~freeWord(w) & (-1L << from);
+        while (word == 0) {
+            if (++w > lastWord) {
+                return limit;
+            }
+            word = ~freeWord(w);
+        }
+        return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    private static void setRange(long[] bits, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            bits[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        bits[firstWord] |= firstMask;
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            bits[w] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    private static void clearRange(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            bits[firstWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        bits[firstWord] &= ~firstMask;
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            bits[w] = 0L;
+        }
+        bits[lastWord] &= ~lastMask;
+    }
+
+    private int floorQuantum(Instant instant) {
+        long q = Math.floorDiv(instant.getEpochSecond() - originSecond, QUANTUM_SECONDS);
+        return (int) Math.max(0, Math.min(quanta, q));
+    }
+
+    private int ceilQuantum(Instant instant) {
+        long q = -Math.floorDiv(originSecond - instant.getEpochSecond(), QUANTUM_SECONDS);
+        return (int) Math.max(0, Math.min(quanta, q));
+    }
+
+    private Instant toInstant(int quantum) {
+        return Instant.ofEpochSecond(originSecond + quantum * QUANTUM_SECONDS);
+    }
+
+    private ZonedDateTime toZoned(int quantum) {
+        return toInstant(quantum).atZone(zone);
+    }
+}
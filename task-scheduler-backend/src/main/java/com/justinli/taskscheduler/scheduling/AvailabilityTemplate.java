@@ -0,0 +1,159 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled weekly availability: working windows per weekday plus per-date overrides (holidays, one-off
+ * hours). Windows are stored as flat {@code [start, end, start, end, ...]} arrays of minutes from local
+ * midnight, sorted and merged at build time, so the slot engine only does an array lookup per day.
+ * An end past 1440 means the window runs into the next day. Instances are immutable and shareable.
+ */
+public final class AvailabilityTemplate {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int[] NO_WINDOWS = new int[0];
+    private static final Map<WorkHours, AvailabilityTemplate> WORK_HOURS_TEMPLATES = new ConcurrentHashMap<>();
+
+    private final int[][] weekly;
+    private final Map<LocalDate, int[]> exceptions;
+
+    private AvailabilityTemplate(int[][] weekly, Map<LocalDate, int[]> exceptions) {
+        this.weekly = weekly;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Same window every day of the week. An end hour of 0 means midnight and an end hour before the
+     * start hour means the window runs overnight.
+     */
+    public static AvailabilityTemplate fromWorkHours(int workStartHour, int workEndHour) {
+        return WORK_HOURS_TEMPLATES.computeIfAbsent(new WorkHours(workStartHour, workEndHour), key ->
+            builder()
+                .addWindow(Set.of(DayOfWeek.values()), workStartHour * 60, workEndHour * 60)
+                .build()
+        );
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // End hours 0 and 24 are both accepted, so the pair itself is the key
+    private record WorkHours(int startHour, int endHour) {
+    }
+
+    /**
+     * Working windows for a date: its exception windows if it has any (empty for a day off),
+     * otherwise the weekday's windows.
+     */
+    public int[] windowsFor(LocalDate date) {
+        int[] override = exceptions.get(date);
+        if (override != null) {
+            return override;
+        }
+        return weekly[date.getDayOfWeek().getValue() - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            int[] windows = weekly[day.getValue() - 1];
+            sb.append(day.name(), 0, 3).append(' ');
+            for (int i = 0; i < windows.length; i += 2) {
+                sb.append(formatMinute(windows[i])).append('-').append(formatMinute(windows[i + 1])).append(' ');
+            }
+        }
+        if (!exceptions.isEmpty()) {
+            sb.append("(+").append(exceptions.size()).append(" date exceptions)");
+        }
+        return sb.toString().trim();
+    }
+
+    private static String formatMinute(int minute) {
+        return String.format("%02d:%02d", (minute / 60) % 24, minute % 60);
+    }
+
+    public static class Builder {
+
+        private final List<List<int[]>> weekly = new ArrayList<>();
+        private final Map<LocalDate, List<int[]>> exceptions = new HashMap<>();
+
+        private Builder() {
+            for (int i = 0; i < 7; i++) {
+                weekly.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Adds a window on the given weekdays. An end at or before the start runs into the next day.
+         */
+        public Builder addWindow(Set<DayOfWeek> days, int startMinute, int endMinute) {
+            int[] window = normalize(startMinute, endMinute);
+            for (DayOfWeek day : days) {
+                weekly.get(day.getValue() - 1).add(window);
+            }
+            return this;
+        }
+
+        public Builder addDayOff(LocalDate date) {
+            exceptions.computeIfAbsent(date, d -> new ArrayList<>());
+            return this;
+        }
+
+        /**
+         * Replaces the weekday windows on {@code date} with this window (several may be added).
+         */
+        public Builder addExceptionWindow(LocalDate date, int startMinute, int endMinute) {
+            exceptions.computeIfAbsent(date, d -> new ArrayList<>()).add(normalize(startMinute, endMinute));
+            return this;
+        }
+
+        public AvailabilityTemplate build() {
+            int[][] compiledWeekly = new int[7][];
+            for (int i = 0; i < 7; i++) {
+                compiledWeekly[i] = compile(weekly.get(i));
+            }
+            Map<LocalDate, int[]> compiledExceptions = new HashMap<>();
+            exceptions.forEach((date, windows) -> compiledExceptions.put(date, compile(windows)));
+            return new AvailabilityTemplate(compiledWeekly, Collections.unmodifiableMap(compiledExceptions));
+        }
+
+        private static int[] normalize(int startMinute, int endMinute) {
+            if (startMinute < 0 || startMinute >= MINUTES_PER_DAY || endMinute < 0 || endMinute > MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("Window minutes must be within a day: " + startMinute + "-" + endMinute);
+            }
+            int end = endMinute <= startMinute ? endMinute + MINUTES_PER_DAY : endMinute;
+            return new int[]{startMinute, end};
+        }
+
+        // Sorts windows and merges overlapping or touching ones into a flat array
+        private static int[] compile(List<int[]> windows) {
+            if (windows.isEmpty()) {
+                return NO_WINDOWS;
+            }
+            int[][] sorted = windows.toArray(new int[0][]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a[0], b[0]));
+            int[] flat = new int[sorted.length * 2];
+            int size = 0;
+            for (int[] window : sorted) {
+                if (size > 0 && window[0] <= flat[size - 1]) {
+                    flat[size - 1] = Math.max(flat[size - 1], window[1]);
+                } else {
+                    flat[size++] = window[0];
+                    flat[size++] = window[1];
+                }
+            }
+            return Arrays.copyOf(flat, size);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Puts each session at the start of the shortest gap that holds it, leaving long gaps free for
+ * later, larger tasks. A used gap shrinks to what is left after the session and a break, and can
+ * take further sessions.
+ */
+final class BestFitAllocator implements SlotAllocator {
+
+    @Override
+    public String id() {
+        return "best-fit";
+    }
+
+    @Override
+    public List<TimeSlot> allocate(List<TimeSlot> freeSlots, int totalMinutes, int maxSessionMinutes,
+                                   int breakMinutes) {
+        // Shortest first; among equal lengths the earliest
+        TreeSet<Gap> gaps = new TreeSet<>(Comparator.comparingLong(Gap::minutes).thenComparingInt(Gap::order));
+        for (int i = 0; i < freeSlots.size(); i++) {
+            gaps.add(new Gap(freeSlots.get(i), i));
+        }
+
+        List<TimeSlot> sessions = new ArrayList<>();
+        int remainingMinutes = totalMinutes;
+        while (remainingMinutes > 0) {
+            int neededMinutes = Math.min(remainingMinutes, maxSessionMinutes);
+            Gap gap = gaps.ceiling(new Gap(null, neededMinutes, -1));
+            if (gap == null) {
+                break;
+            }
+            gaps.remove(gap);
+            ZonedDateTime end = gap.slot().start().plusMinutes(neededMinutes);
+            sessions.add(new TimeSlot(gap.slot().start(), end));
+            remainingMinutes -= neededMinutes;
+
+            ZonedDateTime rest = end.plusMinutes(breakMinutes);
+            if (rest.isBefore(gap.slot().end())) {
+                gaps.add(new Gap(new TimeSlot(rest, gap.slot().end()), gap.order()));
+            }
+        }
+
+        sessions.sort(Comparator.comparing(TimeSlot::start));
+        return sessions;
+    }
+
+    // order is the slot's position in time, a stable tie-breaker for gaps of equal length
+    private record Gap(TimeSlot slot, long minutes, int order) {
+
+        Gap(TimeSlot slot, int order) {
+            this(slot, slot.durationMinutes(), order);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.justinli.taskscheduler.scheduling;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+
+import java.time.Instant;
+
+/**
+ * A half-open [start, end) span of time during which the user is not available.
+ */
+public record BusyInterval(Instant start, Instant end) {
+
+    public BusyInterval {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("Busy interval ends before it starts: " + start + " - " + end);
+        }
+    }
+
+    /**
+     * Converts a timed Google event into a busy interval.
+     * Returns null for all-day events (they only carry a date, not a dateTime).
+     */
+    public static BusyInterval fromEvent(Event event) {
+        if (event.getStart() == null || event.getEnd() == null) {
+            return null;
+        }
+        DateTime start = event.getStart().getDateTime();
+        DateTime end = event.getEnd().getDateTime();
+        if (start == null || end == null) {
+            return null;
+        }
+        return new BusyInterval(Instant.ofEpochMilli(start.getValue()), Instant.ofEpochMilli(end.getValue()));
+    }
+
+    public boolean overlaps(Instant otherStart, Instant otherEnd) {
+        return start.isBefore(otherEnd) && otherStart.isBefore(end);
+    }
+}
@@ -0,0 +1,66 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the slots in order, placing as many sessions in each as fit and shortening a session to use
+ * the rest of a slot, as long as it is at least {@code minSessionMinutes}. Sessions are also kept
+ * from leaving a remainder shorter than that minimum.
+ */
+final class FillGapsAllocator implements SlotAllocator {
+
+    private final int minSessionMinutes;
+
+    FillGapsAllocator(int minSessionMinutes) {
+        this.minSessionMinutes = minSessionMinutes;
+    }
+
+    @Override
+    public String id() {
+        return "fill-gaps";
+    }
+
+    @Override
+    public int minSlotMinutes(int totalMinutes, int maxSessionMinutes) {
+        return Math.min(minSessionMinutes, Math.min(totalMinutes, maxSessionMinutes));
+    }
+
+    @Override
+    public List<TimeSlot> allocate(List<TimeSlot> freeSlots, int totalMinutes, int maxSessionMinutes,
+                                   int breakMinutes) {
+        List<TimeSlot> sessions = new ArrayList<>();
+        int remainingMinutes = totalMinutes;
+        ZonedDateTime lastSessionEnd = null;
+
+        for (TimeSlot slot : freeSlots) {
+            ZonedDateTime start = slot.start();
+            if (lastSessionEnd != null && start.isBefore(lastSessionEnd.plusMinutes(breakMinutes))) {
+                start = lastSessionEnd.plusMinutes(breakMinutes);
+            }
+            while (remainingMinutes > 0) {
+                long available = Duration.between(start, slot.end()).toMinutes();
+                int length = (int) Math.min(available, Math.min(maxSessionMinutes, remainingMinutes));
+                int left = remainingMinutes - length;
+                if (left > 0 && left < minSessionMinutes) {
+                    length = remainingMinutes - minSessionMinutes;
+                }
+                // A task shorter than the minimum is one short session
+                if (length < Math.min(minSessionMinutes, remainingMinutes)) {
+                    break;
+                }
+                ZonedDateTime end = start.plusMinutes(length);
+                sessions.add(new TimeSlot(start, end));
+                remainingMinutes -= length;
+                lastSessionEnd = end;
+                start = end.plusMinutes(breakMinutes);
+            }
+            if (remainingMinutes <= 0) {
+                break;
+            }
+        }
+        return sessions;
+    }
+}
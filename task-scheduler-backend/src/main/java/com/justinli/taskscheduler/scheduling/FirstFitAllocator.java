@@ -0,0 +1,60 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Slots are taken in order and each slot holds at most one session. A slot that cannot fit the next
+ * session (after the break since the previous one) is skipped rather than partially used. With
+ * {@code onePerDay}, at most one session is placed on each calendar day.
+ */
+final class FirstFitAllocator implements SlotAllocator {
+
+    static final FirstFitAllocator ANY_DAY = new FirstFitAllocator(false);
+    static final FirstFitAllocator ONE_PER_DAY = new FirstFitAllocator(true);
+
+    private final boolean onePerDay;
+
+    private FirstFitAllocator(boolean onePerDay) {
+        this.onePerDay = onePerDay;
+    }
+
+    @Override
+    public String id() {
+        return "first-fit";
+    }
+
+    @Override
+    public List<TimeSlot> allocate(List<TimeSlot> freeSlots, int totalMinutes, int maxSessionMinutes,
+                                   int breakMinutes) {
+        List<TimeSlot> sessions = new ArrayList<>();
+        int remainingMinutes = totalMinutes;
+        ZonedDateTime lastSessionEnd = null;
+
+        for (TimeSlot slot : freeSlots) {
+            if (remainingMinutes <= 0) {
+                break;
+            }
+            ZonedDateTime start = slot.start();
+            if (onePerDay && lastSessionEnd != null && start.toLocalDate().equals(lastSessionEnd.toLocalDate())) {
+                continue;
+            }
+            // Respect the break after the previous session
+            if (lastSessionEnd != null && start.isBefore(lastSessionEnd.plusMinutes(breakMinutes))) {
+                start = lastSessionEnd.plusMinutes(breakMinutes);
+            }
+
+            int neededMinutes = Math.min(remainingMinutes, maxSessionMinutes);
+            if (Duration.between(start, slot.end()).toMinutes() < neededMinutes) {
+                continue; // too small for the full session
+            }
+            ZonedDateTime end = start.plusMinutes(neededMinutes);
+            sessions.add(new TimeSlot(start, end));
+            remainingMinutes -= neededMinutes;
+            lastSessionEnd = end;
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,29 @@
+package com.justinli.taskscheduler.scheduling;
+
+/**
+ * One way of splitting a task that the proposer tries: a session length and whether sessions are
+ * spread to at most one per day. The {@link #id()} is what a client sends back to commit a proposal.
+ */
+public record PlanCandidate(int sessionMinutes, boolean onePerDay) {
+
+    public String id() {
+        return sessionMinutes + "m" + (onePerDay ? "-daily" : "");
+    }
+
+    public static PlanCandidate parse(String id) {
+        boolean onePerDay = id.endsWith("-daily");
+        String minutes = onePerDay ? id.substring(0, id.length() - "-daily".length()) : id;
+        if (!minutes.endsWith("m")) {
+            throw new IllegalArgumentException("Unknown plan: " + id);
+        }
+        try {
+            int sessionMinutes = Integer.parseInt(minutes.substring(0, minutes.length() - 1));
+            if (sessionMinutes <= 0) {
+                throw new IllegalArgumentException("Unknown plan: " + id);
+            }
+            return new PlanCandidate(sessionMinutes, onePerDay);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown plan: " + id);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * A fully planned candidate with the measures it is ranked by. {@code fragmentationMinutes} is free
+ * time left behind in the used slots in pieces too short for another session; {@code slackMinutes} is
+ * the time between the last session and the end of the search window (the deadline).
+ */
+public record PlanProposal(String plan, List<PlannedSession> sessions, ZonedDateTime finishesAt,
+                           int sessionCount, long fragmentationMinutes, long slackMinutes, double score) {
+
+    PlanProposal withScore(double score) {
+        return new PlanProposal(plan, sessions, finishesAt, sessionCount, fragmentationMinutes, slackMinutes, score);
+    }
+}
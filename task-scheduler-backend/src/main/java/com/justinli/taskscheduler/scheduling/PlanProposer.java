@@ -0,0 +1,144 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builds several alternative plans for a task over the same free slots and ranks them, without
+ * writing anything. Candidates vary the session length (the maximum down to an hour) and whether
+ * sessions are spread to one per day; each is planned independently on the given fork-join pool.
+ */
+public final class PlanProposer {
+
+    // Leftover pieces shorter than this can't hold a session and count as fragmentation
+    private static final int USEFUL_GAP_MINUTES = 30;
+
+    public enum Objective { BALANCED, EARLIEST_FINISH, FEWEST_SESSIONS, LEAST_FRAGMENTATION, MOST_SLACK }
+
+    private PlanProposer() {
+    }
+
+    public static List<PlanCandidate> candidates(int totalMinutes, int maxSessionMinutes) {
+        Set<Integer> lengths = new LinkedHashSet<>();
+        int longest = Math.min(totalMinutes, maxSessionMinutes);
+        lengths.add(longest);
+        lengths.add(longest * 3 / 4);
+        lengths.add(longest / 2);
+        lengths.add(60);
+        lengths.removeIf(minutes -> minutes < Math.min(60, longest) || minutes > longest);
+
+        List<PlanCandidate> candidates = new ArrayList<>();
+        for (int minutes : lengths) {
+            candidates.add(new PlanCandidate(minutes, false));
+            candidates.add(new PlanCandidate(minutes, true));
+        }
+        return candidates;
+    }
+
+    public static List<PlanProposal> propose(
+            ForkJoinPool pool,
+            List<TimeSlot> freeSlots,
+            String taskSummary,
+            String taskDescription,
+            int totalMinutes,
+            int maxSessionMinutes,
+            int breakTimeMinutes,
+            ZonedDateTime deadline,
+            Objective objective,
+            int maxProposals
+    ) {
+        List<Callable<Optional<PlanProposal>>> tasks = new ArrayList<>();
+        for (PlanCandidate candidate : candidates(totalMinutes, maxSessionMinutes)) {
+            tasks.add(() -> SessionPlanner.tryPlan(
+                    freeSlots, taskSummary, taskDescription, totalMinutes,
+                    candidate.sessionMinutes(), breakTimeMinutes, candidate.onePerDay())
+                .map(sessions -> measure(candidate, sessions, freeSlots, deadline)));
+        }
+
+        List<PlanProposal> proposals = new ArrayList<>();
+        Set<List<PlannedSession>> seen = new HashSet<>();
+        for (Future<Optional<PlanProposal>> future : pool.invokeAll(tasks)) {
+            // Different candidates can land on the same sessions; keep the first of each
+            get(future).filter(proposal -> seen.add(proposal.sessions())).ifPresent(proposals::add);
+        }
+        return rank(proposals, objective).stream().limit(Math.max(1, maxProposals)).toList();
+    }
+
+    static PlanProposal measure(PlanCandidate candidate, List<PlannedSession> sessions,
+                                List<TimeSlot> freeSlots, ZonedDateTime deadline) {
+        ZonedDateTime finishesAt = sessions.get(sessions.size() - 1).end();
+        long fragmentation = 0;
+        for (PlannedSession session : sessions) {
+            for (TimeSlot slot : freeSlots) {
+                if (!slot.start().isAfter(session.start()) && !slot.end().isBefore(session.end())) {
+                    long before = Duration.between(slot.start(), session.start()).toMinutes();
+                    long after = Duration.between(session.end(), slot.end()).toMinutes();
+                    fragmentation += (before < USEFUL_GAP_MINUTES ? before : 0) + (after < USEFUL_GAP_MINUTES ? after : 0);
+                    break;
+                }
+            }
+        }
+        long slack = Math.max(0, Duration.between(finishesAt, deadline).toMinutes());
+        return new PlanProposal(candidate.id(), sessions, finishesAt, sessions.size(), fragmentation, slack, 0);
+    }
+
+    /**
+     * Scores each proposal in [0, 1] as the average of its min-max normalised finish time, session
+     * count and fragmentation (1 is best on all three), then orders by the objective, ties by score.
+     */
+    static List<PlanProposal> rank(List<PlanProposal> proposals, Objective objective) {
+        List<PlanProposal> scored = new ArrayList<>();
+        for (PlanProposal proposal : proposals) {
+            double finish = normalise(proposals, p -> p.finishesAt().toEpochSecond(), proposal);
+            double sessions = normalise(proposals, PlanProposal::sessionCount, proposal);
+            double fragmentation = normalise(proposals, PlanProposal::fragmentationMinutes, proposal);
+            double score = 1 - (finish + sessions + fragmentation) / 3;
+            scored.add(proposal.withScore(Math.round(score * 1000) / 1000.0));
+        }
+
+        Comparator<PlanProposal> byScore = Comparator.comparingDouble(PlanProposal::score).reversed();
+        Comparator<PlanProposal> order = switch (objective) {
+            case BALANCED -> byScore;
+            case EARLIEST_FINISH -> Comparator.comparing(PlanProposal::finishesAt).thenComparing(byScore);
+            case FEWEST_SESSIONS -> Comparator.comparingInt(PlanProposal::sessionCount).thenComparing(byScore);
+            case LEAST_FRAGMENTATION -> Comparator.comparingLong(PlanProposal::fragmentationMinutes).thenComparing(byScore);
+            case MOST_SLACK -> Comparator.comparingLong(PlanProposal::slackMinutes).reversed().thenComparing(byScore);
+        };
+        scored.sort(order);
+        return scored;
+    }
+
+    // 0 for the best (lowest) value among the proposals, 1 for the worst
+    private static double normalise(List<PlanProposal> proposals, ToLongFunction<PlanProposal> metric,
+                                    PlanProposal proposal) {
+        long min = proposals.stream().mapToLong(metric).min().orElse(0);
+        long max = proposals.stream().mapToLong(metric).max().orElse(0);
+        return max == min ? 0 : (double) (metric.applyAsLong(proposal) - min) / (max - min);
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing plans", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
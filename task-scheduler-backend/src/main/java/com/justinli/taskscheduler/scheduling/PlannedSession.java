@@ -0,0 +1,19 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * One work session chosen by the planner, before anything is written to Google Calendar.
+ */
+public record PlannedSession(int sessionNumber, ZonedDateTime start, ZonedDateTime end,
+                             String summary, String description) {
+
+    public long durationMinutes() {
+        return Duration.between(start, end).toMinutes();
+    }
+
+    public BusyInterval toBusyInterval() {
+        return new BusyInterval(start.toInstant(), end.toInstant());
+    }
+}
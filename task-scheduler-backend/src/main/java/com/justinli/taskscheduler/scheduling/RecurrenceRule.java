@@ -0,0 +1,431 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The RRULE, RDATE and EXDATE lines of a recurring Google event, expanded locally into occurrence
+ * start times. Occurrences are generated lazily and only inside the requested window, so a daily
+ * series costs nothing beyond the days the slot search actually looks at.
+ *
+ * Supports FREQ=DAILY/WEEKLY/MONTHLY/YEARLY with INTERVAL, COUNT, UNTIL, WKST, BYDAY (with ordinals for
+ * monthly and yearly-by-month rules), BYMONTHDAY and BYMONTH. {@link #parse} returns empty for anything
+ * else (BYSETPOS, BYWEEKNO, sub-daily frequencies, multiple RRULEs, EXRULE), and callers fall back to
+ * asking Google for the instances.
+ */
+public final class RecurrenceRule {
+
+    private static final DateTimeFormatter BASIC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    private record WeekdayNum(int ordinal, DayOfWeek day) { // ordinal 0 = every such day in the period
+    }
+
+    private final ZonedDateTime dtStart;
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final Instant until;
+    private final DayOfWeek weekStart;
+    private final List<WeekdayNum> byDay;
+    private final List<Integer> byMonthDay;
+    private final Set<Integer> byMonth;
+    private final TreeSet<Instant> extraDates;
+    private final Set<Instant> excludedDates;
+
+    private RecurrenceRule(ZonedDateTime dtStart, Frequency frequency, int interval, Integer count, Instant until,
+                           DayOfWeek weekStart, List<WeekdayNum> byDay, List<Integer> byMonthDay, Set<Integer> byMonth,
+                           TreeSet<Instant> extraDates, Set<Instant> excludedDates) {
+        this.dtStart = dtStart;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.weekStart = weekStart;
+        this.byDay = byDay;
+        this.byMonthDay = byMonthDay;
+        this.byMonth = byMonth;
+        this.extraDates = extraDates;
+        this.excludedDates = excludedDates;
+    }
+
+    /**
+     * Parses the {@code recurrence} lines of an event that starts at {@code dtStart} (in the event's
+     * own time zone, which is what wall-clock recurrence is evaluated in).
+     */
+    public static Optional<RecurrenceRule> parse(List<String> recurrence, ZonedDateTime dtStart) {
+        String rrule = null;
+        TreeSet<Instant> extraDates = new TreeSet<>();
+        Set<Instant> excludedDates = new TreeSet<>();
+        try {
+            for (String line : recurrence) {
+                String name = line.substring(0, indexOfAny(line, ';', ':')).toUpperCase();
+                switch (name) {
+                    case "RRULE" -> {
+                        if (rrule != null) {
+                            return Optional.empty();
+                        }
+                        rrule = line.substring(line.indexOf(':') + 1);
+                    }
+                    case "RDATE" -> extraDates.addAll(parseDates(line, dtStart));
+                    case "EXDATE" -> excludedDates.addAll(parseDates(line, dtStart));
+                    default -> {
+                        return Optional.empty();
+                    }
+                }
+            }
+        } catch (DateTimeException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+        if (rrule == null) {
+            return Optional.empty();
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        Instant until = null;
+        DayOfWeek weekStart = DayOfWeek.MONDAY;
+        List<WeekdayNum> byDay = new ArrayList<>();
+        List<Integer> byMonthDay = new ArrayList<>();
+        Set<Integer> byMonth = new TreeSet<>();
+        try {
+            for (String part : rrule.split(";")) {
+                int eq = part.indexOf('=');
+                String key = part.substring(0, eq).toUpperCase();
+                String value = part.substring(eq + 1).toUpperCase();
+                switch (key) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = parseDate(value, dtStart.getZone(), dtStart.toLocalTime());
+                    case "WKST" -> weekStart = weekday(value);
+                    case "BYDAY" -> {
+                        for (String day : value.split(",")) {
+                            int ordinal = day.length() > 2 ? Integer.parseInt(day.substring(0, day.length() - 2)) : 0;
+                            byDay.add(new WeekdayNum(ordinal, weekday(day.substring(day.length() - 2))));
+                        }
+                    }
+                    case "BYMONTHDAY" -> {
+                        for (String day : value.split(",")) {
+                            byMonthDay.add(Integer.parseInt(day));
+                        }
+                    }
+                    case "BYMONTH" -> {
+                        for (String month : value.split(",")) {
+                            byMonth.add(Integer.parseInt(month));
+                        }
+                    }
+                    default -> {
+                        return Optional.empty();
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+        if (frequency == null || interval < 1) {
+            return Optional.empty();
+        }
+        boolean ordinals = byDay.stream().anyMatch(day -> day.ordinal() != 0);
+        if (ordinals && (frequency == Frequency.DAILY || frequency == Frequency.WEEKLY)) {
+            return Optional.empty();
+        }
+        // Yearly BYDAY and BYMONTHDAY are only supported inside BYMONTH (e.g. the second Sunday of March)
+        if (frequency == Frequency.YEARLY && byMonth.isEmpty() && (!byDay.isEmpty() || !byMonthDay.isEmpty())) {
+            return Optional.empty();
+        }
+        return Optional.of(new RecurrenceRule(dtStart, frequency, interval, count, until, weekStart,
+            byDay, byMonthDay, byMonth, extraDates, excludedDates));
+    }
+
+    /**
+     * Start times of the occurrences that begin before {@code to} and end after {@code from}, in order.
+     * EXDATEs are already removed; RDATEs are merged in.
+     */
+    public Iterator<ZonedDateTime> occurrences(Instant from, Instant to, Duration duration) {
+        return new OccurrenceIterator(from, to, duration);
+    }
+
+    private class OccurrenceIterator implements Iterator<ZonedDateTime> {
+
+        private final Instant from;
+        private final Instant to;
+        private final Duration duration;
+        private final Iterator<Instant> extras;
+        private long period;
+        private int generated; // counted from DTSTART, including occurrences before the window
+        private final List<ZonedDateTime> pending = new ArrayList<>();
+        private int pendingIndex;
+        private boolean ruleDone;
+        private ZonedDateTime nextFromRule;
+        private Instant nextExtra;
+        private ZonedDateTime next;
+
+        OccurrenceIterator(Instant from, Instant to, Duration duration) {
+            this.from = from;
+            this.to = to;
+            this.duration = duration;
+            this.extras = extraDates.subSet(from.minus(duration), false, to, false).iterator();
+            // Without COUNT nothing before the window matters, so skip straight to just before it
+            if (count == null) {
+                ZonedDateTime windowStart = from.minus(duration).atZone(dtStart.getZone());
+                long periods = unit().between(periodStart(0), windowStart) / interval;
+                period = Math.max(0, periods - 1);
+            }
+            nextFromRule = advanceRule();
+            nextExtra = extras.hasNext() ? extras.next() : null;
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ZonedDateTime next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ZonedDateTime current = next;
+            next = advance();
+            return current;
+        }
+
+        private ZonedDateTime advance() {
+            while (nextFromRule != null || nextExtra != null) {
+                ZonedDateTime candidate;
+                if (nextExtra == null || (nextFromRule != null && !nextFromRule.toInstant().isAfter(nextExtra))) {
+                    candidate = nextFromRule;
+                    if (nextExtra != null && nextFromRule.toInstant().equals(nextExtra)) {
+                        nextExtra = extras.hasNext() ? extras.next() : null;
+                    }
+                    nextFromRule = advanceRule();
+                } else {
+                    candidate = nextExtra.atZone(dtStart.getZone());
+                    nextExtra = extras.hasNext() ? extras.next() : null;
+                }
+                if (!excludedDates.contains(candidate.toInstant())) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        // Next rule occurrence overlapping the window, or null once past the window, UNTIL or COUNT
+        private ZonedDateTime advanceRule() {
+            while (!ruleDone) {
+                if (pendingIndex >= pending.size()) {
+                    ZonedDateTime start = periodStart(period);
+                    if (!start.toInstant().isBefore(to) || (until != null && start.toInstant().isAfter(until))) {
+                        ruleDone = true;
+                        break;
+                    }
+                    pending.clear();
+                    pendingIndex = 0;
+                    for (LocalDate date : datesInPeriod(start.toLocalDate())) {
+                        ZonedDateTime occurrence = ZonedDateTime.of(date, dtStart.toLocalTime(), dtStart.getZone());
+                        if (!occurrence.isBefore(dtStart)) {
+                            pending.add(occurrence);
+                        }
+                    }
+                    period++;
+                    continue;
+                }
+                ZonedDateTime occurrence = pending.get(pendingIndex++);
+                Instant start = occurrence.toInstant();
+                if ((count != null && generated >= count) || (until != null && start.isAfter(until))
+                        || !start.isBefore(to)) {
+                    ruleDone = true;
+                    break;
+                }
+                generated++;
+                if (start.plus(duration).isAfter(from)) {
+                    return occurrence;
+                }
+            }
+            return null;
+        }
+    }
+
+    private ChronoUnit unit() {
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS;
+            case WEEKLY -> ChronoUnit.WEEKS;
+            case MONTHLY -> ChronoUnit.MONTHS;
+            case YEARLY -> ChronoUnit.YEARS;
+        };
+    }
+
+    // First day of the n-th period at DTSTART's time: the day, the WKST-aligned week, the month or the year
+    private ZonedDateTime periodStart(long n) {
+        LocalDate first = switch (frequency) {
+            case DAILY -> dtStart.toLocalDate();
+            case WEEKLY -> dtStart.toLocalDate().with(TemporalAdjusters.previousOrSame(weekStart));
+            case MONTHLY -> dtStart.toLocalDate().withDayOfMonth(1);
+            case YEARLY -> dtStart.toLocalDate().withDayOfYear(1);
+        };
+        return ZonedDateTime.of(first.plus(n * interval, unit()), dtStart.toLocalTime(), dtStart.getZone());
+    }
+
+    // Candidate dates of one period, in order, after the BYxxx filters
+    private List<LocalDate> datesInPeriod(LocalDate start) {
+        List<LocalDate> dates = new ArrayList<>();
+        switch (frequency) {
+            case DAILY -> {
+                if (matchesMonth(start) && matchesMonthDay(start) && matchesWeekday(start)) {
+                    dates.add(start);
+                }
+            }
+            case WEEKLY -> {
+                for (int i = 0; i < 7; i++) {
+                    LocalDate date = start.plusDays(i);
+                    boolean day = byDay.isEmpty()
+                        ? date.getDayOfWeek() == dtStart.getDayOfWeek()
+                        : matchesWeekday(date);
+                    if (day && matchesMonth(date)) {
+                        dates.add(date);
+                    }
+                }
+            }
+            case MONTHLY -> {
+                if (byMonth.isEmpty() || byMonth.contains(start.getMonthValue())) {
+                    dates.addAll(datesInMonth(start));
+                }
+            }
+            case YEARLY -> {
+                Set<Integer> months = byMonth.isEmpty() ? Set.of(dtStart.getMonthValue()) : byMonth;
+                for (int month : new TreeSet<>(months)) {
+                    dates.addAll(datesInMonth(start.withMonth(month)));
+                }
+            }
+        }
+        return dates;
+    }
+
+    private List<LocalDate> datesInMonth(LocalDate firstOfMonth) {
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        int length = firstOfMonth.lengthOfMonth();
+        if (byDay.isEmpty() && byMonthDay.isEmpty()) {
+            if (dtStart.getDayOfMonth() <= length) {
+                dates.add(firstOfMonth.withDayOfMonth(dtStart.getDayOfMonth()));
+            }
+            return new ArrayList<>(dates);
+        }
+        if (!byDay.isEmpty()) {
+            for (WeekdayNum weekday : byDay) {
+                if (weekday.ordinal() == 0) {
+                    for (LocalDate date = firstOfMonth.with(TemporalAdjusters.firstInMonth(weekday.day()));
+                         date.getMonth() == firstOfMonth.getMonth(); date = date.plusWeeks(1)) {
+                        dates.add(date);
+                    }
+                } else {
+                    LocalDate date = firstOfMonth.with(TemporalAdjusters.dayOfWeekInMonth(weekday.ordinal(), weekday.day()));
+                    if (date.getMonth() == firstOfMonth.getMonth()) {
+                        dates.add(date);
+                    }
+                }
+            }
+            // BYMONTHDAY and BYDAY together: days that satisfy both
+            dates.removeIf(date -> !matchesMonthDay(date));
+        } else {
+            for (int day : byMonthDay) {
+                int dayOfMonth = day > 0 ? day : length + day + 1;
+                if (dayOfMonth >= 1 && dayOfMonth <= length) {
+                    dates.add(firstOfMonth.withDayOfMonth(dayOfMonth));
+                }
+            }
+        }
+        return new ArrayList<>(dates);
+    }
+
+    private boolean matchesMonth(LocalDate date) {
+        return byMonth.isEmpty() || byMonth.contains(date.getMonthValue());
+    }
+
+    private boolean matchesMonthDay(LocalDate date) {
+        if (byMonthDay.isEmpty()) {
+            return true;
+        }
+        int length = date.lengthOfMonth();
+        for (int day : byMonthDay) {
+            if (date.getDayOfMonth() == (day > 0 ? day : length + day + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesWeekday(LocalDate date) {
+        return byDay.isEmpty() || byDay.stream().anyMatch(weekday -> weekday.day() == date.getDayOfWeek());
+    }
+
+    private static List<Instant> parseDates(String line, ZonedDateTime dtStart) {
+        int colon = line.indexOf(':');
+        ZoneId zone = dtStart.getZone();
+        for (String param : line.substring(0, colon).split(";")) {
+            if (param.toUpperCase().startsWith("TZID=")) {
+                zone = ZoneId.of(param.substring("TZID=".length()));
+            }
+        }
+        List<Instant> dates = new ArrayList<>();
+        for (String value : line.substring(colon + 1).split(",")) {
+            dates.add(parseDate(value.trim(), zone, dtStart.toLocalTime()));
+        }
+        return dates;
+    }
+
+    // yyyyMMdd'T'HHmmss[Z] or yyyyMMdd (taken at DTSTART's time of day)
+    private static Instant parseDate(String value, ZoneId zone, LocalTime timeOfDay) {
+        if (value.endsWith("Z")) {
+            return LocalDateTime.parse(value.substring(0, value.length() - 1), BASIC_DATE_TIME).toInstant(ZoneOffset.UTC);
+        }
+        if (value.contains("T")) {
+            return LocalDateTime.parse(value, BASIC_DATE_TIME).atZone(zone).toInstant();
+        }
+        return LocalDate.parse(value, BASIC_DATE).atTime(timeOfDay).atZone(zone).toInstant();
+    }
+
+    private static DayOfWeek weekday(String code) {
+        return switch (code) {
+            case "MO" -> DayOfWeek.MONDAY;
+            case "TU" -> DayOfWeek.TUESDAY;
+            case "WE" -> DayOfWeek.WEDNESDAY;
+            case "TH" -> DayOfWeek.THURSDAY;
+            case "FR" -> DayOfWeek.FRIDAY;
+            case "SA" -> DayOfWeek.SATURDAY;
+            case "SU" -> DayOfWeek.SUNDAY;
+            default -> throw new IllegalArgumentException("Unknown weekday: " + code);
+        };
+    }
+
+    private static int indexOfAny(String value, char first, char second) {
+        int a = value.indexOf(first);
+        int b = value.indexOf(second);
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 ? a : Math.min(a, b);
+    }
+}
@@ -0,0 +1,138 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Splits a task into sessions over a list of free slots without touching Google Calendar. Where the
+ * sessions go is up to a {@link SlotAllocator}; first-fit unless the caller picks another.
+ */
+public final class SessionPlanner {
+
+    private SessionPlanner() {
+    }
+
+    // Minimum slot duration should be at least 30 minutes or the smallest session we need
+    public static int minSlotMinutes(int totalMinutes, int maxSessionMinutes) {
+        return Math.min(30, Math.min(totalMinutes, maxSessionMinutes));
+    }
+
+    public static List<PlannedSession> plan(
+            List<TimeSlot> freeSlots,
+            String taskSummary,
+            String taskDescription,
+            int totalMinutes,
+            int maxSessionMinutes,
+            int breakTimeMinutes
+    ) {
+        return plan(freeSlots, taskSummary, taskDescription, totalMinutes, maxSessionMinutes, breakTimeMinutes, 1);
+    }
+
+    /**
+     * Same as above, numbering sessions from {@code firstSessionNumber} (used when extending a task
+     * that already has sessions).
+     */
+    public static List<PlannedSession> plan(
+            List<TimeSlot> freeSlots,
+            String taskSummary,
+            String taskDescription,
+            int totalMinutes,
+            int maxSessionMinutes,
+            int breakTimeMinutes,
+            int firstSessionNumber
+    ) {
+        return plan(freeSlots, taskSummary, taskDescription, totalMinutes, maxSessionMinutes, breakTimeMinutes,
+            firstSessionNumber, SlotAllocator.firstFit());
+    }
+
+    /**
+     * Same as above with the given allocation strategy. Throws if the slots can't hold the whole task.
+     */
+    public static List<PlannedSession> plan(
+            List<TimeSlot> freeSlots,
+            String taskSummary,
+            String taskDescription,
+            int totalMinutes,
+            int maxSessionMinutes,
+            int breakTimeMinutes,
+            int firstSessionNumber,
+            SlotAllocator allocator
+    ) {
+        // Log free slots found for debugging
+        System.out.println("=== Task Scheduling Debug ===");
+        System.out.println("Total task duration: " + (totalMinutes / 60.0) + " hours (" + totalMinutes + " minutes)");
+        System.out.println("Max session: " + (maxSessionMinutes / 60.0) + " hours");
+        System.out.println("Allocator: " + allocator.id());
+        System.out.println("Found " + freeSlots.size() + " free slots:");
+        for (int i = 0; i < freeSlots.size(); i++) {
+            TimeSlot slot = freeSlots.get(i);
+            System.out.println("  Slot " + (i + 1) + ": " + slot.start() + " to " + slot.end()
+                + " (" + slot.durationMinutes() + " minutes)");
+        }
+
+        List<TimeSlot> placed = allocator.allocate(freeSlots, totalMinutes, maxSessionMinutes, breakTimeMinutes);
+        for (TimeSlot session : placed) {
+            System.out.println("  Using: " + session.start() + " to " + session.end()
+                + " (" + session.durationMinutes() + " minute session)");
+        }
+
+        int remainingMinutes = totalMinutes - placedMinutes(placed);
+        if (remainingMinutes > 0) {
+            throw new IllegalStateException(
+                String.format("Could not schedule entire task. %.1f hours remaining unscheduled.",
+                remainingMinutes / 60.0)
+            );
+        }
+
+        return toSessions(placed, taskSummary, taskDescription, totalMinutes, firstSessionNumber);
+    }
+
+    /**
+     * Quiet variant used to compare alternative plans: returns empty instead of throwing when the
+     * slots can't hold the whole task. With {@code onePerDay}, at most one session is placed on each
+     * calendar day.
+     */
+    public static Optional<List<PlannedSession>> tryPlan(
+            List<TimeSlot> freeSlots,
+            String taskSummary,
+            String taskDescription,
+            int totalMinutes,
+            int maxSessionMinutes,
+            int breakTimeMinutes,
+            boolean onePerDay
+    ) {
+        SlotAllocator allocator = onePerDay ? FirstFitAllocator.ONE_PER_DAY : FirstFitAllocator.ANY_DAY;
+        List<TimeSlot> placed = allocator.allocate(freeSlots, totalMinutes, maxSessionMinutes, breakTimeMinutes);
+        if (placedMinutes(placed) < totalMinutes) {
+            return Optional.empty();
+        }
+        return Optional.of(toSessions(placed, taskSummary, taskDescription, totalMinutes, 1));
+    }
+
+    private static int placedMinutes(List<TimeSlot> placed) {
+        return (int) placed.stream().mapToLong(TimeSlot::durationMinutes).sum();
+    }
+
+    // Numbers the sessions in time order; each description says how much was left before it
+    private static List<PlannedSession> toSessions(List<TimeSlot> placed, String taskSummary,
+                                                   String taskDescription, int totalMinutes,
+                                                   int firstSessionNumber) {
+        List<PlannedSession> sessions = new ArrayList<>();
+        int remainingMinutes = totalMinutes;
+        int sessionNumber = firstSessionNumber;
+        for (TimeSlot slot : placed) {
+            String eventSummary = String.format("%s (Session %d)", taskSummary, sessionNumber);
+            String eventDescription = String.format(
+                "%s\n\nSession %d of task - %.1f hours remaining",
+                taskDescription != null ? taskDescription : "",
+                sessionNumber,
+                remainingMinutes / 60.0
+            );
+            sessions.add(new PlannedSession(sessionNumber, slot.start(), slot.end(), eventSummary, eventDescription));
+            remainingMinutes -= (int) slot.durationMinutes();
+            sessionNumber++;
+        }
+        return sessions;
+    }
+}
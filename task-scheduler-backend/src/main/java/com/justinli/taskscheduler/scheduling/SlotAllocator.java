@@ -0,0 +1,78 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.util.List;
+
+/**
+ * Decides where a task's sessions go within the free slots. Allocators only choose times;
+ * {@link SessionPlanner} numbers and labels the result.
+ *
+ * Strategies, for n free slots and k sessions:
+ * <ul>
+ *   <li>{@code first-fit}: each session in the earliest slot that holds it, one per slot. O(n).</li>
+ *   <li>{@code best-fit}: each session in the shortest gap that holds it, so long gaps stay
+ *       free for later tasks. O((n + k) log n).</li>
+ *   <li>{@code fill-gaps}: fills slots in order, splitting sessions to use short gaps down to a
+ *       minimum session length. O(n + k).</li>
+ *   <li>{@code spread}: sessions on as many different days as possible, evenly spaced over the
+ *       window. O(n + d·k) for d days.</li>
+ * </ul>
+ */
+public interface SlotAllocator {
+
+    List<String> IDS = List.of("first-fit", "best-fit", "fill-gaps", "spread");
+    int DEFAULT_MIN_SESSION_MINUTES = 30;
+
+    /**
+     * Chooses session times for up to {@code totalMinutes} of work in {@code freeSlots} (sorted and
+     * disjoint): each session at most {@code maxSessionMinutes} long and at least {@code breakMinutes}
+     * after the previous one. Returns them in time order; they cover less than {@code totalMinutes}
+     * if the slots are too small.
+     */
+    List<TimeSlot> allocate(List<TimeSlot> freeSlots, int totalMinutes, int maxSessionMinutes, int breakMinutes);
+
+    String id();
+
+    // Shortest free slot worth passing to allocate()
+    default int minSlotMinutes(int totalMinutes, int maxSessionMinutes) {
+        return SessionPlanner.minSlotMinutes(totalMinutes, maxSessionMinutes);
+    }
+
+    static SlotAllocator firstFit() {
+        return FirstFitAllocator.ANY_DAY;
+    }
+
+    static SlotAllocator bestFit() {
+        return new BestFitAllocator();
+    }
+
+    static SlotAllocator fillGaps(int minSessionMinutes) {
+        return new FillGapsAllocator(minSessionMinutes);
+    }
+
+    static SlotAllocator spreadAcrossDays() {
+        return new SpreadAllocator();
+    }
+
+    /**
+     * The allocator named {@code id}; first-fit when it is null or blank. {@code minSessionMinutes}
+     * only applies to fill-gaps and may be null for the default.
+     */
+    static SlotAllocator parse(String id, Integer minSessionMinutes) {
+        if (id == null || id.isBlank()) {
+            return firstFit();
+        }
+        return switch (id.trim().toLowerCase()) {
+            case "first-fit" -> firstFit();
+            case "best-fit" -> bestFit();
+            case "fill-gaps" -> {
+                int minimum = minSessionMinutes != null ? minSessionMinutes : DEFAULT_MIN_SESSION_MINUTES;
+                if (minimum <= 0) {
+                    throw new IllegalArgumentException("minSessionHours must be positive.");
+                }
+                yield fillGaps(minimum);
+            }
+            case "spread" -> spreadAcrossDays();
+            default -> throw new IllegalArgumentException("Unknown allocator: " + id + ". Use one of " + IDS);
+        };
+    }
+}
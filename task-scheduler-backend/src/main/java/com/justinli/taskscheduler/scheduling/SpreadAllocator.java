@@ -0,0 +1,90 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads sessions over the window instead of packing them into the first days. With at least as
+ * many usable days as sessions, the sessions go on evenly spaced days, one each; otherwise every
+ * usable day gets one, then a second, and so on. Within a day sessions go first-fit.
+ */
+final class SpreadAllocator implements SlotAllocator {
+
+    @Override
+    public String id() {
+        return "spread";
+    }
+
+    @Override
+    public List<TimeSlot> allocate(List<TimeSlot> freeSlots, int totalMinutes, int maxSessionMinutes,
+                                   int breakMinutes) {
+        if (totalMinutes <= 0) {
+            return List.of();
+        }
+        int sessionMinutes = Math.min(totalMinutes, maxSessionMinutes);
+        int sessionCount = (totalMinutes + sessionMinutes - 1) / sessionMinutes;
+
+        // Where full-length sessions can start on each day, up to sessionCount per day
+        Map<LocalDate, List<ZonedDateTime>> startsByDay = new LinkedHashMap<>();
+        ZonedDateTime lastEnd = null;
+        LocalDate lastDay = null;
+        for (TimeSlot slot : freeSlots) {
+            LocalDate day = slot.start().toLocalDate();
+            if (!day.equals(lastDay)) {
+                lastEnd = null;
+                lastDay = day;
+            }
+            List<ZonedDateTime> starts = startsByDay.computeIfAbsent(day, d -> new ArrayList<>());
+            ZonedDateTime start = slot.start();
+            if (lastEnd != null && start.isBefore(lastEnd.plusMinutes(breakMinutes))) {
+                start = lastEnd.plusMinutes(breakMinutes);
+            }
+            while (starts.size() < sessionCount && !start.plusMinutes(sessionMinutes).isAfter(slot.end())) {
+                starts.add(start);
+                lastEnd = start.plusMinutes(sessionMinutes);
+                start = lastEnd.plusMinutes(breakMinutes);
+            }
+        }
+        List<List<ZonedDateTime>> days = startsByDay.values().stream().filter(starts -> !starts.isEmpty()).toList();
+        if (days.isEmpty()) {
+            return List.of();
+        }
+
+        List<ZonedDateTime> chosen = new ArrayList<>();
+        if (days.size() >= sessionCount) {
+            // First and last usable day, and evenly in between
+            for (int i = 0; i < sessionCount; i++) {
+                int day = sessionCount == 1 ? 0 : (int) Math.round((double) i * (days.size() - 1) / (sessionCount - 1));
+                chosen.add(days.get(day).get(0));
+            }
+        } else {
+            for (int round = 0; chosen.size() < sessionCount; round++) {
+                int before = chosen.size();
+                for (List<ZonedDateTime> starts : days) {
+                    if (round < starts.size() && chosen.size() < sessionCount) {
+                        chosen.add(starts.get(round));
+                    }
+                }
+                if (chosen.size() == before) {
+                    break; // every day is full
+                }
+            }
+        }
+
+        // Full-length sessions, except that the last one in time takes whatever is left
+        chosen.sort(Comparator.naturalOrder());
+        List<TimeSlot> sessions = new ArrayList<>();
+        int remainingMinutes = totalMinutes;
+        for (ZonedDateTime start : chosen) {
+            int length = Math.min(sessionMinutes, remainingMinutes);
+            sessions.add(new TimeSlot(start, start.plusMinutes(length)));
+            remainingMinutes -= length;
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,24 @@
+package com.justinli.taskscheduler.scheduling;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A contiguous block of free time returned by the slot engine.
+ */
+public record TimeSlot(ZonedDateTime start, ZonedDateTime end) {
+
+    public long durationMinutes() {
+        return Duration.between(start, end).toMinutes();
+    }
+
+    // Shape used by the REST API ({"start": ..., "end": ...})
+    public Map<String, ZonedDateTime> toMap() {
+        Map<String, ZonedDateTime> slot = new HashMap<>();
+        slot.put("start", start);
+        slot.put("end", end);
+        return slot;
+    }
+}
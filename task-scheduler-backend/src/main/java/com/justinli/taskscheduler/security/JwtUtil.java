@@ -1,6 +1,7 @@
 package com.justinli.taskscheduler.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
@@ -16,6 +17,10 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String OAUTH_STATE_PURPOSE = "google-oauth";
+    private static final long OAUTH_STATE_EXPIRATION_MS = 10 * 60 * 1000;
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -28,6 +33,27 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername());
     }
 
+    // Short-lived OAuth "state" naming the user a Google consent callback belongs to
+    public String generateOAuthState(String email) {
+        Date now = new Date();
+        return Jwts.builder()
+                .claim(PURPOSE_CLAIM, OAUTH_STATE_PURPOSE)
+                .subject(email)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + OAUTH_STATE_EXPIRATION_MS))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    // Email from a state issued by generateOAuthState; throws JwtException if it is forged or expired
+    public String extractOAuthStateEmail(String state) {
+        Claims claims = extractAllClaims(state);
+        if (!OAUTH_STATE_PURPOSE.equals(claims.get(PURPOSE_CLAIM, String.class))) {
+            throw new JwtException("Not an OAuth state token");
+        }
+        return claims.getSubject();
+    }
+
     // Create token with claims
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
@@ -81,6 +107,8 @@ public class JwtUtil {
     // Validate token
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // Purpose-bound tokens (e.g. OAuth state, which travels in URLs) never authenticate requests
+        boolean purposeBound = extractClaim(token, claims -> claims.get(PURPOSE_CLAIM)) != null;
+        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token) && !purposeBound);
     }
 }
@@ -42,6 +42,8 @@ public class SecurityConfig {
                     "/api/auth/**",
                     "/api/calendars/**",
                     "/api/tasks/**",
+                    "/api/availability/**",
+                    "/api/analytics/**",
                     "/h2-console/**",
                     "/error"
                 ).permitAll()
@@ -0,0 +1,55 @@
+package com.justinli.taskscheduler.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * Who the current thread acts for. Requests get this from the JWT filter; background jobs (outbox
+ * dispatch, channel renewal, token refresh) use {@link #runAs} so per-user lookups work there too.
+ */
+public final class UserContext {
+
+    // Shared user for anonymous requests while the calendar and task endpoints are open for testing
+    public static final String DEFAULT_USER_EMAIL = "default@test.com";
+
+    private UserContext() {
+    }
+
+    public static boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+            || "anonymousUser".equals(authentication.getPrincipal());
+    }
+
+    /**
+     * Email of the authenticated user, or the default user's for anonymous requests. Needs no
+     * database lookup.
+     */
+    public static String currentEmail() {
+        return isAnonymous() ? DEFAULT_USER_EMAIL : SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    public static <E extends Exception> void runAs(String email, Action<E> action) throws E {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(
+            email, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))
+        ));
+        SecurityContextHolder.setContext(context);
+        try {
+            action.run();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
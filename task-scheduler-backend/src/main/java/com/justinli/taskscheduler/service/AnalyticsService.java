@@ -0,0 +1,250 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.CalendarEvent;
+import com.justinli.taskscheduler.model.CompletionRollup;
+import com.justinli.taskscheduler.model.SessionRollup;
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.CompletionRollupRepository;
+import com.justinli.taskscheduler.repository.SessionRollupRepository;
+import com.justinli.taskscheduler.repository.TaskRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the analytics rollups ({@link SessionRollup}, {@link CompletionRollup}) and answers
+ * dashboard queries from them, so a query costs one row per bucket however much history there is.
+ *
+ * Changes are recorded while a transaction runs and applied just before it commits, as one
+ * increment per bucket in key order: the rollups commit or roll back together with the sessions,
+ * and concurrent transactions lock shared buckets in the same order. A missing bucket is created
+ * in its own transaction first, so two requests creating it at once don't fail each other.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final Comparator<SessionKey> SESSION_KEY_ORDER = Comparator.comparing(SessionKey::userId)
+        .thenComparing(SessionKey::day)
+        .thenComparing(SessionKey::calendarId)
+        .thenComparing(SessionKey::priority);
+    private static final Comparator<CompletionKey> COMPLETION_KEY_ORDER = Comparator.comparing(CompletionKey::userId)
+        .thenComparing(CompletionKey::day);
+
+    private final SessionRollupRepository sessionRollupRepository;
+    private final CompletionRollupRepository completionRollupRepository;
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TransactionTemplate requiresNew;
+
+    public AnalyticsService(SessionRollupRepository sessionRollupRepository,
+                            CompletionRollupRepository completionRollupRepository,
+                            TaskRepository taskRepository,
+                            UserRepository userRepository,
+                            UserService userService,
+                            PlatformTransactionManager transactionManager) {
+        this.sessionRollupRepository = sessionRollupRepository;
+        this.completionRollupRepository = completionRollupRepository;
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Maintenance; call inside the transaction that makes the change
+
+    public void sessionAdded(CalendarEvent session) {
+        recordSession(session, 1);
+    }
+
+    /**
+     * Call before a session is deleted, or before its times change with {@link #sessionAdded}
+     * after the change.
+     */
+    public void sessionRemoved(CalendarEvent session) {
+        recordSession(session, -1);
+    }
+
+    /**
+     * Sets the task's status, keeping {@code completedAt} and the completion rollup in step.
+     */
+    public void setStatus(Task task, Task.TaskStatus status) {
+        LocalDateTime previousCompletedAt = task.getCompletedAt();
+        task.setStatus(status);
+        if (status != Task.TaskStatus.COMPLETED) {
+            task.setCompletedAt(null);
+        } else if (previousCompletedAt == null) {
+            task.setCompletedAt(LocalDateTime.now());
+        }
+        if (previousCompletedAt != null && task.getCompletedAt() == null) {
+            recordCompletion(task, previousCompletedAt, -1);
+        } else if (previousCompletedAt == null && task.getCompletedAt() != null) {
+            recordCompletion(task, task.getCompletedAt(), 1);
+        }
+    }
+
+    public void taskDeleted(Task task) {
+        task.getCalendarEvents().forEach(this::sessionRemoved);
+        if (task.getCompletedAt() != null) {
+            recordCompletion(task, task.getCompletedAt(), -1);
+        }
+    }
+
+    /**
+     * Recomputes the current user's rollups from their tasks, e.g. for data that predates the rollups.
+     */
+    @Transactional
+    public void rebuildForCurrentUser() {
+        User user = userService.getCurrentUserOrDefault();
+        sessionRollupRepository.resetByUserId(user.getId());
+        completionRollupRepository.resetByUserId(user.getId());
+        for (Task task : taskRepository.findByUser(user)) {
+            task.getCalendarEvents().forEach(this::sessionAdded);
+            if (task.getCompletedAt() != null) {
+                recordCompletion(task, task.getCompletedAt(), 1);
+            }
+        }
+    }
+
+    // Queries; each row is {key, minutes, sessions}
+
+    @Transactional(readOnly = true)
+    public List<Object[]> minutesByDayForCurrentUser(LocalDate from, LocalDate to) {
+        return sessionRollupRepository.sumByDay(userService.getCurrentUserOrDefault().getId(), from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Object[]> minutesByPriorityForCurrentUser(LocalDate from, LocalDate to) {
+        return sessionRollupRepository.sumByPriority(userService.getCurrentUserOrDefault().getId(), from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Object[]> minutesByCalendarForCurrentUser(LocalDate from, LocalDate to) {
+        return sessionRollupRepository.sumByCalendar(userService.getCurrentUserOrDefault().getId(), from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CompletionRollup> completionsForCurrentUser(LocalDate from, LocalDate to) {
+        return completionRollupRepository.findNonEmpty(userService.getCurrentUserOrDefault().getId(), from, to);
+    }
+
+    private void recordSession(CalendarEvent session, int sign) {
+        Task task = session.getTask();
+        SessionKey key = new SessionKey(
+            task.getUser().getId(),
+            session.getStartTime().toLocalDate(),
+            session.getCalendarId(),
+            task.getPriority() != null ? task.getPriority() : Task.TaskPriority.MEDIUM
+        );
+        long minutes = Duration.between(session.getStartTime(), session.getEndTime()).toMinutes();
+        pending().sessions.merge(key, new long[] {sign * minutes, sign}, AnalyticsService::add);
+    }
+
+    private void recordCompletion(Task task, LocalDateTime completedAt, int sign) {
+        CompletionKey key = new CompletionKey(task.getUser().getId(), completedAt.toLocalDate());
+        long[] counts = new long[3]; // on time, late, no due date
+        if (task.getDueDate() == null) {
+            counts[2] = sign;
+        } else if (completedAt.isAfter(task.getDueDate())) {
+            counts[1] = sign;
+        } else {
+            counts[0] = sign;
+        }
+        pending().completions.merge(key, counts, AnalyticsService::add);
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        long[] sum = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    // Changes recorded in the current transaction
+    private PendingRollups pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Analytics rollups must be updated inside a transaction");
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRollups pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingRollups pending = new PendingRollups();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void applySession(SessionKey key, long[] delta) {
+        if (delta[0] == 0 && delta[1] == 0) {
+            return;
+        }
+        if (sessionRollupRepository.increment(key.userId(), key.day(), key.calendarId(), key.priority(),
+                delta[0], delta[1]) > 0) {
+            return;
+        }
+        createBucket(() -> sessionRollupRepository.saveAndFlush(new SessionRollup(
+            null, userRepository.getReferenceById(key.userId()), key.day(), key.calendarId(), key.priority(), 0L, 0L)));
+        sessionRollupRepository.increment(key.userId(), key.day(), key.calendarId(), key.priority(),
+            delta[0], delta[1]);
+    }
+
+    private void applyCompletion(CompletionKey key, long[] delta) {
+        if (delta[0] == 0 && delta[1] == 0 && delta[2] == 0) {
+            return;
+        }
+        if (completionRollupRepository.increment(key.userId(), key.day(), delta[0], delta[1], delta[2]) > 0) {
+            return;
+        }
+        createBucket(() -> completionRollupRepository.saveAndFlush(new CompletionRollup(
+            null, userRepository.getReferenceById(key.userId()), key.day(), 0L, 0L, 0L)));
+        completionRollupRepository.increment(key.userId(), key.day(), delta[0], delta[1], delta[2]);
+    }
+
+    private void createBucket(Runnable insert) {
+        try {
+            requiresNew.executeWithoutResult(status -> insert.run());
+        } catch (DataIntegrityViolationException e) {
+            // created by a concurrent transaction; the increment below finds it
+        }
+    }
+
+    private record SessionKey(Long userId, LocalDate day, String calendarId, Task.TaskPriority priority) {
+    }
+
+    private record CompletionKey(Long userId, LocalDate day) {
+    }
+
+    private final class PendingRollups implements TransactionSynchronization {
+
+        private final Map<SessionKey, long[]> sessions = new TreeMap<>(SESSION_KEY_ORDER);
+        private final Map<CompletionKey, long[]> completions = new TreeMap<>(COMPLETION_KEY_ORDER);
+
+        AnalyticsService owner() {
+            return AnalyticsService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            sessions.forEach(AnalyticsService.this::applySession);
+            completions.forEach(AnalyticsService.this::applyCompletion);
+        }
+    }
+}
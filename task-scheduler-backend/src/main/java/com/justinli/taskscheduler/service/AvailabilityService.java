@@ -0,0 +1,242 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.dto.AvailabilitySettings;
+import com.justinli.taskscheduler.model.AvailabilityException;
+import com.justinli.taskscheduler.model.AvailabilityRule;
+import com.justinli.taskscheduler.model.AvailabilityVersion;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.AvailabilityExceptionRepository;
+import com.justinli.taskscheduler.repository.AvailabilityRuleRepository;
+import com.justinli.taskscheduler.repository.AvailabilityVersionRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import com.justinli.taskscheduler.scheduling.AvailabilityTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores per-user availability rules and keeps their compiled {@link AvailabilityTemplate}s in memory,
+ * so the slot engine does not reload or re-derive work windows on every request.
+ *
+ * Each replace increments the user's {@link AvailabilityVersion} and caches the new template once it
+ * has committed. Reads compare the cached template's version with the database, so a replace on
+ * another node is picked up on the next read.
+ */
+@Service
+@Transactional
+public class AvailabilityService {
+
+    private final AvailabilityRuleRepository ruleRepository;
+    private final AvailabilityExceptionRepository exceptionRepository;
+    private final AvailabilityVersionRepository versionRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TransactionTemplate requiresNew;
+
+    // Compiled templates by user id
+    private final Map<Long, CachedTemplate> templates = new ConcurrentHashMap<>();
+
+    public AvailabilityService(AvailabilityRuleRepository ruleRepository,
+                               AvailabilityExceptionRepository exceptionRepository,
+                               AvailabilityVersionRepository versionRepository,
+                               UserRepository userRepository,
+                               UserService userService,
+                               PlatformTransactionManager transactionManager) {
+        this.ruleRepository = ruleRepository;
+        this.exceptionRepository = exceptionRepository;
+        this.versionRepository = versionRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<AvailabilityTemplate> getTemplateForCurrentUser() {
+        User user = userService.getCurrentUserOrDefault();
+        long version = versionRepository.findVersion(user.getId()).orElse(0L);
+        CachedTemplate cached = templates.get(user.getId());
+        // Newer than the database when a replica has not caught up with this node's own replace
+        if (cached != null && cached.version() >= version) {
+            return cached.template();
+        }
+        Optional<AvailabilityTemplate> template = compile(
+            ruleRepository.findByUser(user),
+            exceptionRepository.findByUserOrderByDateAsc(user)
+        );
+        cache(user.getId(), new CachedTemplate(version, template));
+        return template;
+    }
+
+    @Transactional(readOnly = true)
+    public AvailabilitySettings getSettingsForCurrentUser() {
+        User user = userService.getCurrentUserOrDefault();
+
+        AvailabilitySettings settings = new AvailabilitySettings();
+        for (AvailabilityRule rule : ruleRepository.findByUser(user)) {
+            settings.getWindows().add(new AvailabilitySettings.Window(
+                rule.getDays().stream().map(DayOfWeek::name).toList(),
+                formatMinute(rule.getStartMinute()),
+                formatMinute(rule.getEndMinute())
+            ));
+        }
+        for (AvailabilityException exception : exceptionRepository.findByUserOrderByDateAsc(user)) {
+            settings.getExceptions().add(new AvailabilitySettings.DateException(
+                exception.getDate().toString(),
+                exception.getStartMinute() != null ? formatMinute(exception.getStartMinute()) : null,
+                exception.getEndMinute() != null ? formatMinute(exception.getEndMinute()) : null,
+                exception.getDescription()
+            ));
+        }
+        return settings;
+    }
+
+    public AvailabilitySettings replaceSettingsForCurrentUser(AvailabilitySettings settings) {
+        User user = userService.getCurrentUserOrDefault();
+
+        List<AvailabilityRule> rules = new ArrayList<>();
+        if (settings.getWindows() != null) {
+            for (AvailabilitySettings.Window window : settings.getWindows()) {
+                AvailabilityRule rule = new AvailabilityRule();
+                rule.setDaysMask(AvailabilityRule.toMask(parseDays(window.getDays())));
+                rule.setStartMinute(parseMinute(window.getStart()));
+                rule.setEndMinute(parseMinute(window.getEnd()));
+                rule.setUser(user);
+                rules.add(rule);
+            }
+        }
+
+        List<AvailabilityException> exceptions = new ArrayList<>();
+        if (settings.getExceptions() != null) {
+            for (AvailabilitySettings.DateException dateException : settings.getExceptions()) {
+                AvailabilityException exception = new AvailabilityException();
+                exception.setDate(parseDate(dateException.getDate()));
+                if (dateException.getStart() != null || dateException.getEnd() != null) {
+                    exception.setStartMinute(parseMinute(dateException.getStart()));
+                    exception.setEndMinute(parseMinute(dateException.getEnd()));
+                }
+                exception.setDescription(dateException.getDescription());
+                exception.setUser(user);
+                exceptions.add(exception);
+            }
+        }
+
+        // Compile first so invalid windows are rejected before anything is replaced
+        Optional<AvailabilityTemplate> template = compile(rules, exceptions);
+
+        // Also locks the version row, so concurrent replaces for the user don't interleave
+        CachedTemplate replaced = new CachedTemplate(incrementVersion(user.getId()), template);
+        ruleRepository.deleteByUser(user);
+        exceptionRepository.deleteByUser(user);
+        ruleRepository.saveAll(rules);
+        exceptionRepository.saveAll(exceptions);
+        // Until then other requests keep using (and caching) the committed rules
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(user.getId(), replaced);
+            }
+        });
+
+        return getSettingsForCurrentUser();
+    }
+
+    // Keeps the newer of the cached and the given template
+    private void cache(Long userId, CachedTemplate template) {
+        templates.merge(userId, template, (current, given) -> given.version() >= current.version() ? given : current);
+    }
+
+    private long incrementVersion(Long userId) {
+        if (versionRepository.increment(userId) == 0) {
+            try {
+                requiresNew.executeWithoutResult(status -> versionRepository.saveAndFlush(
+                    new AvailabilityVersion(null, userRepository.getReferenceById(userId), 0L)));
+            } catch (DataIntegrityViolationException e) {
+                // created by a concurrent transaction; the increment below finds it
+            }
+            versionRepository.increment(userId);
+        }
+        return versionRepository.findVersion(userId).orElseThrow();
+    }
+
+    private Optional<AvailabilityTemplate> compile(List<AvailabilityRule> rules, List<AvailabilityException> exceptions) {
+        if (rules.isEmpty() && exceptions.isEmpty()) {
+            return Optional.empty();
+        }
+        AvailabilityTemplate.Builder builder = AvailabilityTemplate.builder();
+        for (AvailabilityRule rule : rules) {
+            builder.addWindow(rule.getDays(), rule.getStartMinute(), rule.getEndMinute());
+        }
+        for (AvailabilityException exception : exceptions) {
+            if (exception.getStartMinute() == null || exception.getEndMinute() == null) {
+                builder.addDayOff(exception.getDate());
+            } else {
+                builder.addExceptionWindow(exception.getDate(), exception.getStartMinute(), exception.getEndMinute());
+            }
+        }
+        return Optional.of(builder.build());
+    }
+
+    private static Set<DayOfWeek> parseDays(List<String> days) {
+        if (days == null || days.isEmpty()) {
+            throw new IllegalArgumentException("Each availability window needs at least one day.");
+        }
+        Set<DayOfWeek> parsed = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : days) {
+            try {
+                parsed.add(DayOfWeek.valueOf(day.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid day of week: " + day);
+            }
+        }
+        return parsed;
+    }
+
+    private static int parseMinute(String time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Start and end times are required (HH:mm).");
+        }
+        if ("24:00".equals(time)) {
+            return AvailabilityTemplate.MINUTES_PER_DAY;
+        }
+        try {
+            LocalTime parsed = LocalTime.parse(time);
+            return parsed.getHour() * 60 + parsed.getMinute();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time (expected HH:mm): " + time);
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid date (expected yyyy-MM-dd): " + date);
+        }
+    }
+
+    private static String formatMinute(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    // An empty template means "no rules saved, use request work hours"
+    private record CachedTemplate(long version, Optional<AvailabilityTemplate> template) {
+    }
+}
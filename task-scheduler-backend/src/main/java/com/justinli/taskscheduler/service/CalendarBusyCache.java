@@ -0,0 +1,208 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Busy intervals per user and calendar ("primary" is a different calendar for every user), kept only
+ * for calendars with a live watch channel. Without a channel nothing would tell us the calendar
+ * changed, so those calendars are always read from Google.
+ *
+ * Each calendar has a generation that a push notification bumps. A fetch records the generation it
+ * started under and its result is dropped if a notification arrived in the meantime.
+ *
+ * Google delivers each notification to one node only, which records it on the channel row. Before a
+ * cached read, the other nodes pass the latest recorded notification to {@link #checkNotified} and
+ * drop the calendar's entry if it is one they haven't seen.
+ *
+ * After a restart, entries from the last snapshot ({@link CalendarBusySnapshot}) wait in a restored
+ * state: they are decoded and served only once Google confirms the calendar has not changed since
+ * they were fetched, see {@link #promote}.
+ */
+@Component
+public class CalendarBusyCache {
+
+    private final Map<Key, Instant> watchedUntil = new ConcurrentHashMap<>();
+    private final Map<Key, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Key, Restored> restored = new ConcurrentHashMap<>();
+    private final Map<Key, LocalDateTime> lastNotified = new ConcurrentHashMap<>();
+
+    public void watch(String userEmail, String calendarId, Instant expiration) {
+        watchedUntil.merge(new Key(userEmail, calendarId), expiration,
+            (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    public void unwatch(String userEmail, String calendarId) {
+        watchedUntil.remove(new Key(userEmail, calendarId));
+        invalidate(userEmail, calendarId);
+    }
+
+    public boolean isWatched(String userEmail, String calendarId) {
+        return isWatched(new Key(userEmail, calendarId));
+    }
+
+    public long generation(String userEmail, String calendarId) {
+        return generation(new Key(userEmail, calendarId));
+    }
+
+    /**
+     * Busy intervals overlapping {@code [from, to)}, if a cached fetch covers that whole window.
+     */
+    public Optional<List<BusyInterval>> get(String userEmail, String calendarId, Instant from, Instant to) {
+        Key key = new Key(userEmail, calendarId);
+        if (!isWatched(key)) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(key);
+        if (entry == null || entry.from().isAfter(from) || entry.to().isBefore(to)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.busy().stream()
+            .filter(interval -> interval.overlaps(from, to))
+            .toList());
+    }
+
+    /**
+     * Stores a fetch of {@code [from, to)} that started at {@code fetchedAt} under {@code generation};
+     * ignored if the calendar is not watched or was invalidated since.
+     */
+    public void put(String userEmail, String calendarId, long generation, Instant from, Instant to,
+                    Instant fetchedAt, List<BusyInterval> busy) {
+        Key key = new Key(userEmail, calendarId);
+        if (!isWatched(key)) {
+            return;
+        }
+        Entry fetched = new Entry(from, to, fetchedAt, List.copyOf(busy));
+        entries.compute(key, (k, current) -> generation(k) == generation ? fetched : current);
+        restored.remove(key);
+    }
+
+    /**
+     * Drops the calendar's entry unless {@code notifiedAt} (the latest notification recorded for it in
+     * the database, null if none) is the one this node saw last. The first call for a calendar drops it
+     * too: the node can't tell what the entry has missed. Restored entries stay, since revalidation
+     * asks Google about every change since they were fetched.
+     */
+    public void checkNotified(String userEmail, String calendarId, LocalDateTime notifiedAt) {
+        Key key = new Key(userEmail, calendarId);
+        LocalDateTime current = notifiedAt != null ? notifiedAt : LocalDateTime.MIN;
+        if (!current.equals(lastNotified.put(key, current))) {
+            generations.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidate(String userEmail, String calendarId) {
+        Key key = new Key(userEmail, calendarId);
+        // Bump first so a fetch racing with this call can't store its result after the removal
+        generations.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        entries.remove(key);
+        restored.remove(key);
+    }
+
+    // Snapshot support
+
+    /**
+     * Adds an entry read from a snapshot; {@code busy} decodes its intervals when first needed.
+     */
+    public void restore(String userEmail, String calendarId, Instant from, Instant to, Instant fetchedAt,
+                        Supplier<List<BusyInterval>> busy) {
+        Key key = new Key(userEmail, calendarId);
+        if (!entries.containsKey(key)) {
+            restored.putIfAbsent(key, new Restored(from, to, fetchedAt, busy));
+        }
+    }
+
+    /**
+     * When the restored entry for the calendar was fetched, if there is one covering {@code [from, to)}
+     * that could be served once revalidated.
+     */
+    public Optional<Instant> restoredFetchedAt(String userEmail, String calendarId, Instant from, Instant to) {
+        Key key = new Key(userEmail, calendarId);
+        Restored entry = restored.get(key);
+        if (entry == null || !isWatched(key) || entry.from().isAfter(from) || entry.to().isBefore(to)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.fetchedAt());
+    }
+
+    /**
+     * Watched calendars whose restored entries wait for revalidation, with when each was fetched.
+     */
+    public Map<Key, Instant> restoredFetchTimes() {
+        Map<Key, Instant> fetchTimes = new HashMap<>();
+        restored.forEach((key, entry) -> {
+            if (isWatched(key)) {
+                fetchTimes.put(key, entry.fetchedAt());
+            }
+        });
+        return fetchTimes;
+    }
+
+    /**
+     * Makes the restored entry a regular one, after Google reported no changes since it was fetched.
+     * Like {@link #put}, ignored if a notification arrived after {@code generation} was read.
+     */
+    public void promote(String userEmail, String calendarId, long generation) {
+        Key key = new Key(userEmail, calendarId);
+        Restored entry = restored.remove(key);
+        if (entry == null || !isWatched(key)) {
+            return;
+        }
+        Entry promoted = new Entry(entry.from(), entry.to(), entry.fetchedAt(), List.copyOf(entry.busy().get()));
+        entries.compute(key, (k, current) -> current == null && generation(k) == generation ? promoted : current);
+    }
+
+    public void discardRestored(String userEmail, String calendarId) {
+        restored.remove(new Key(userEmail, calendarId));
+    }
+
+    /**
+     * Calls {@code action} with every entry, restored ones included, for writing a snapshot.
+     */
+    public void forEachEntry(SnapshotEntryConsumer action) {
+        entries.forEach((key, entry) -> action.accept(key.userEmail(), key.calendarId(), entry.from(), entry.to(),
+            entry.fetchedAt(), entry.busy()));
+        restored.forEach((key, entry) -> {
+            if (!entries.containsKey(key)) {
+                action.accept(key.userEmail(), key.calendarId(), entry.from(), entry.to(), entry.fetchedAt(),
+                    entry.busy().get());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface SnapshotEntryConsumer {
+        void accept(String userEmail, String calendarId, Instant from, Instant to, Instant fetchedAt,
+                    List<BusyInterval> busy);
+    }
+
+    private boolean isWatched(Key key) {
+        Instant until = watchedUntil.get(key);
+        return until != null && until.isAfter(Instant.now());
+    }
+
+    private long generation(Key key) {
+        return generations.computeIfAbsent(key, k -> new AtomicLong()).get();
+    }
+
+    public record Key(String userEmail, String calendarId) {
+    }
+
+    private record Entry(Instant from, Instant to, Instant fetchedAt, List<BusyInterval> busy) {
+    }
+
+    private record Restored(Instant from, Instant to, Instant fetchedAt, Supplier<List<BusyInterval>> busy) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import com.justinli.taskscheduler.scheduling.RecurrenceRule;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads a calendar's busy time with an already authorized client. Shared by
+ * {@link GoogleCalendarService} and the batch CLI, which has no Spring context.
+ *
+ * Lists the calendar without {@code singleEvents}, so a recurring series arrives once with its RRULE
+ * instead of as one full event per instance, and expands it locally within the window. Instances
+ * that were moved or cancelled arrive as separate items and replace their original occurrence.
+ * Series with rules {@link RecurrenceRule} doesn't handle are expanded by Google.
+ */
+public final class CalendarBusyReader {
+
+    // Just what busy time needs; recurring series also carry their rules and overrides their original start
+    private static final String BUSY_FIELDS =
+        "nextPageToken,items(id,status,start,end,recurrence,recurringEventId,originalStartTime)";
+
+    private CalendarBusyReader() {
+    }
+
+    public static List<BusyInterval> read(Calendar service, String calendarId, Instant from, Instant to)
+            throws IOException {
+
+        List<Event> items = new ArrayList<>();
+        String pageToken = null;
+        do {
+            Events page = service.events().list(calendarId)
+                .setTimeMin(new DateTime(Date.from(from)))
+                .setTimeMax(new DateTime(Date.from(to)))
+                .setSingleEvents(false)
+                .setFields(BUSY_FIELDS)
+                .setPageToken(pageToken)
+                .execute();
+            if (page.getItems() != null) {
+                items.addAll(page.getItems());
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        // Original start times of instances that were moved or cancelled, per series
+        Map<String, Set<Instant>> overridden = new HashMap<>();
+        for (Event item : items) {
+            if (item.getRecurringEventId() != null && item.getOriginalStartTime() != null
+                    && item.getOriginalStartTime().getDateTime() != null) {
+                overridden.computeIfAbsent(item.getRecurringEventId(), id -> new HashSet<>())
+                    .add(Instant.ofEpochMilli(item.getOriginalStartTime().getDateTime().getValue()));
+            }
+        }
+
+        List<BusyInterval> busy = new ArrayList<>();
+        for (Event item : items) {
+            if ("cancelled".equals(item.getStatus())) {
+                continue;
+            }
+            if (item.getRecurrence() == null || item.getRecurrence().isEmpty()) {
+                BusyInterval interval = BusyInterval.fromEvent(item);
+                if (interval != null) {
+                    busy.add(interval);
+                }
+                continue;
+            }
+            expandSeries(service, calendarId, item, overridden.getOrDefault(item.getId(), Set.of()), from, to, busy);
+        }
+        busy.sort(Comparator.comparing(BusyInterval::start));
+        return busy;
+    }
+
+    /**
+     * Whether any event on the calendar was added, changed or deleted after {@code since}: one small
+     * request, enough to tell whether busy time read at {@code since} is still current.
+     */
+    public static boolean changedSince(Calendar service, String calendarId, Instant since) throws IOException {
+        Events page = service.events().list(calendarId)
+            .setUpdatedMin(new DateTime(Date.from(since)))
+            .setShowDeleted(true)
+            .setMaxResults(1)
+            .setFields("items(id)")
+            .execute();
+        return page.getItems() != null && !page.getItems().isEmpty();
+    }
+
+    private static void expandSeries(Calendar service, String calendarId, Event series, Set<Instant> overridden,
+                              Instant from, Instant to, List<BusyInterval> busy) throws IOException {
+        BusyInterval first = BusyInterval.fromEvent(series);
+        if (first == null) {
+            return; // all-day series are not busy time, same as single all-day events
+        }
+        Optional<RecurrenceRule> rule;
+        try {
+            EventDateTime start = series.getStart();
+            ZoneId zone = start.getTimeZone() != null
+                ? ZoneId.of(start.getTimeZone())
+                : ZoneOffset.ofTotalSeconds(start.getDateTime().getTimeZoneShift() * 60);
+            rule = RecurrenceRule.parse(series.getRecurrence(), first.start().atZone(zone));
+        } catch (DateTimeException e) {
+            rule = Optional.empty();
+        }
+
+        if (rule.isEmpty()) {
+            busy.addAll(fetchInstances(service, calendarId, series.getId(), from, to));
+            return;
+        }
+        Duration duration = Duration.between(first.start(), first.end());
+        Iterator<ZonedDateTime> occurrences = rule.get().occurrences(from, to, duration);
+        while (occurrences.hasNext()) {
+            Instant start = occurrences.next().toInstant();
+            if (!overridden.contains(start)) {
+                busy.add(new BusyInterval(start, start.plus(duration)));
+            }
+        }
+    }
+
+    private static List<BusyInterval> fetchInstances(Calendar service, String calendarId, String seriesId, Instant from, Instant to)
+            throws IOException {
+        List<BusyInterval> busy = new ArrayList<>();
+        String pageToken = null;
+        do {
+            Events page = service.events().instances(calendarId, seriesId)
+                .setTimeMin(new DateTime(Date.from(from)))
+                .setTimeMax(new DateTime(Date.from(to)))
+                .setFields("nextPageToken,items(status,start,end)")
+                .setPageToken(pageToken)
+                .execute();
+            if (page.getItems() != null) {
+                page.getItems().stream()
+                    .filter(instance -> !"cancelled".equals(instance.getStatus()))
+                    .map(BusyInterval::fromEvent)
+                    .filter(Objects::nonNull)
+                    .forEach(busy::add);
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return busy;
+    }
+}
@@ -0,0 +1,260 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import com.justinli.taskscheduler.security.UserContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves {@link CalendarBusyCache} to a binary file at intervals and on shutdown, and restores it on
+ * startup, so a restarted node doesn't refetch every watched calendar from Google at once.
+ *
+ * The file is memory-mapped when read. Startup reads only the index (user, calendar, window, fetch
+ * time and offset per entry); an entry's intervals are decoded when it is first served. Restored
+ * entries are revalidated with one small request each ({@code updatedMin} = when the entry was
+ * fetched), in the background and, for a calendar requested before that got to it, inline.
+ * Calendars that changed are dropped and read again on their next request.
+ *
+ * Layout: header {@code [int magic][int version][long writtenAt][int count]}, then {@code count}
+ * index records {@code [short+UTF-8 user][short+UTF-8 calendar][long from][long to][long fetchedAt][int offset]},
+ * then per entry {@code [int n]} and n {@code [long start][long end]} pairs. Times are epoch millis.
+ */
+@Component
+public class CalendarBusySnapshot {
+
+    private static final int MAGIC = 0x42555359; // "BUSY"
+    private static final int VERSION = 1;
+
+    private final CalendarBusyCache busyCache;
+    private final GoogleCalendarService googleCalendarService;
+    private final boolean enabled;
+    private final Path file;
+    private final Duration maxAge;
+
+    public CalendarBusySnapshot(CalendarBusyCache busyCache,
+                                GoogleCalendarService googleCalendarService,
+                                @Value("${app.busy-cache.snapshot.enabled:true}") boolean enabled,
+                                @Value("${app.busy-cache.snapshot.file:data/busy-cache.snapshot}") String file,
+                                @Value("${app.busy-cache.snapshot.max-age-seconds:86400}") long maxAgeSeconds) {
+        this.busyCache = busyCache;
+        this.googleCalendarService = googleCalendarService;
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+        if (enabled) {
+            load();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.busy-cache.snapshot.interval-ms:300000}",
+        initialDelayString = "${app.busy-cache.snapshot.interval-ms:300000}")
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write busy cache snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        save();
+    }
+
+    /**
+     * Revalidates the restored entries of watched calendars, one at a time so a restart doesn't
+     * burst against the API quota. Runs after the watch channels have been restored.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void revalidateInBackground() {
+        Map<CalendarBusyCache.Key, Instant> fetchTimes = busyCache.restoredFetchTimes();
+        if (fetchTimes.isEmpty()) {
+            return;
+        }
+        Thread thread = new Thread(() -> revalidate(fetchTimes), "busy-cache-revalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void revalidate(Map<CalendarBusyCache.Key, Instant> fetchTimes) {
+        int kept = 0;
+        int dropped = 0;
+        for (Map.Entry<CalendarBusyCache.Key, Instant> entry : fetchTimes.entrySet()) {
+            String userEmail = entry.getKey().userEmail();
+            String calendarId = entry.getKey().calendarId();
+            // Notifications recorded so far are covered by the check below, so the promoted entry stays valid
+            googleCalendarService.checkNotified(userEmail, calendarId);
+            long generation = busyCache.generation(userEmail, calendarId);
+            boolean unchanged;
+            try {
+                AtomicBoolean result = new AtomicBoolean();
+                UserContext.runAs(userEmail, () ->
+                    result.set(googleCalendarService.isUnchangedSince(calendarId, entry.getValue())));
+                unchanged = result.get();
+            } catch (Exception e) {
+                System.err.println("Could not revalidate cached busy time of " + calendarId + " for " + userEmail
+                    + ": " + e.getMessage());
+                unchanged = false;
+            }
+            if (unchanged) {
+                busyCache.promote(userEmail, calendarId, generation);
+                kept++;
+            } else {
+                busyCache.discardRestored(userEmail, calendarId);
+                dropped++;
+            }
+        }
+        System.out.println("Revalidated busy cache snapshot: " + kept + " calendar(s) kept, " + dropped + " dropped");
+    }
+
+    private void write() throws IOException {
+        List<byte[]> indexRecords = new ArrayList<>();
+        List<List<BusyInterval>> intervals = new ArrayList<>();
+        List<long[]> windows = new ArrayList<>(); // from, to, fetchedAt
+        List<String[]> keys = new ArrayList<>();
+        busyCache.forEachEntry((userEmail, calendarId, from, to, fetchedAt, busy) -> {
+            keys.add(new String[] {userEmail, calendarId});
+            // The window rounded outwards, so it still covers the same requests at millisecond precision
+            long toMillis = to.toEpochMilli() + (to.getNano() % 1_000_000 != 0 ? 1 : 0);
+            windows.add(new long[] {from.toEpochMilli(), toMillis, fetchedAt.toEpochMilli()});
+            intervals.add(busy);
+        });
+
+        int indexBytes = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeUtf(out, keys.get(i)[0]);
+            writeUtf(out, keys.get(i)[1]);
+            for (long time : windows.get(i)) {
+                out.writeLong(time);
+            }
+            indexRecords.add(bytes.toByteArray());
+            indexBytes += bytes.size() + 4;
+        }
+        long size = 4 + 4 + 8 + 4 + indexBytes;
+        for (List<BusyInterval> busy : intervals) {
+            size += 4 + 16L * busy.size();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Busy cache snapshot would exceed 2 GB");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(keys.size());
+                int dataOffset = (int) (4 + 4 + 8 + 4 + indexBytes);
+                for (int i = 0; i < keys.size(); i++) {
+                    buffer.put(indexRecords.get(i));
+                    buffer.putInt(dataOffset);
+                    dataOffset += 4 + 16 * intervals.get(i).size();
+                }
+                for (List<BusyInterval> busy : intervals) {
+                    buffer.putInt(busy.size());
+                    for (BusyInterval interval : busy) {
+                        buffer.putLong(interval.start().toEpochMilli()).putLong(interval.end().toEpochMilli());
+                    }
+                }
+                buffer.force();
+            }
+            // Readers see the old snapshot or the new one, never a partial file
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.err.println("Ignoring busy cache snapshot " + file + ": unknown format");
+                return;
+            }
+            Instant writtenAt = Instant.ofEpochMilli(buffer.getLong());
+            int count = buffer.getInt();
+            int restored = 0;
+            Instant oldest = Instant.now().minus(maxAge);
+            for (int i = 0; i < count; i++) {
+                String userEmail = readUtf(buffer);
+                String calendarId = readUtf(buffer);
+                Instant from = Instant.ofEpochMilli(buffer.getLong());
+                Instant to = Instant.ofEpochMilli(buffer.getLong());
+                Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+                int offset = buffer.getInt();
+                if (fetchedAt.isBefore(oldest)) {
+                    continue;
+                }
+                // The mapping stays valid after the file is replaced by a newer snapshot
+                busyCache.restore(userEmail, calendarId, from, to, fetchedAt, () -> readIntervals(buffer, offset));
+                restored++;
+            }
+            System.out.println("Restored " + restored + " of " + count + " busy cache entries from snapshot written "
+                + writtenAt);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring busy cache snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static List<BusyInterval> readIntervals(ByteBuffer buffer, int offset) {
+        int count = buffer.getInt(offset);
+        List<BusyInterval> busy = new ArrayList<>(count);
+        int position = offset + 4;
+        for (int i = 0; i < count; i++) {
+            busy.add(new BusyInterval(
+                Instant.ofEpochMilli(buffer.getLong(position)),
+                Instant.ofEpochMilli(buffer.getLong(position + 8))
+            ));
+            position += 16;
+        }
+        return busy;
+    }
+
+    private static void writeUtf(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
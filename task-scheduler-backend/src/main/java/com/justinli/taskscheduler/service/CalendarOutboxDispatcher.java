@@ -0,0 +1,323 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.calendar.model.Event;
+import com.justinli.taskscheduler.exception.GoogleCalendarUnavailableException;
+import com.justinli.taskscheduler.journal.JournalRecord;
+import com.justinli.taskscheduler.journal.SchedulingJournal;
+import com.justinli.taskscheduler.model.CalendarOutboxEntry;
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.repository.CalendarEventRepository;
+import com.justinli.taskscheduler.repository.CalendarOutboxRepository;
+import com.justinli.taskscheduler.security.UserContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Drains the calendar outbox: applies pending Google writes in batches, retries failures with
+ * exponential backoff and gives up after a fixed number of attempts, marking the task FAILED.
+ * Writes to the same event are applied in the order they were queued.
+ *
+ * With several nodes on one database, a node claims a row before sending it, so each write is sent by
+ * one node. The claim expires after {@code claim-seconds} in case that node dies mid-send. Outcomes are
+ * recorded against the row as re-read at that point, and only if it is still PENDING and still ours.
+ */
+@Component
+public class CalendarOutboxDispatcher {
+
+    private static final long MAX_BACKOFF_SECONDS = 15 * 60;
+
+    private final CalendarOutboxRepository outboxRepository;
+    private final CalendarEventRepository calendarEventRepository;
+    private final GoogleCalendarService googleCalendarService;
+    private final AnalyticsService analyticsService;
+    private final SchedulingJournal journal;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffSeconds;
+    private final long claimSeconds;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+    private final ExecutorService wakeUpExecutor = Executors.newSingleThreadExecutor();
+
+    public CalendarOutboxDispatcher(
+        CalendarOutboxRepository outboxRepository,
+        CalendarEventRepository calendarEventRepository,
+        GoogleCalendarService googleCalendarService,
+        AnalyticsService analyticsService,
+        SchedulingJournal journal,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.outbox.batch-size:50}") int batchSize,
+        @Value("${app.outbox.max-attempts:8}") int maxAttempts,
+        @Value("${app.outbox.base-backoff-seconds:5}") long baseBackoffSeconds,
+        @Value("${app.outbox.claim-seconds:300}") long claimSeconds
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.calendarEventRepository = calendarEventRepository;
+        this.googleCalendarService = googleCalendarService;
+        this.analyticsService = analyticsService;
+        this.journal = journal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffSeconds = baseBackoffSeconds;
+        this.claimSeconds = claimSeconds;
+    }
+
+    /**
+     * Drains the outbox soon on a background thread, e.g. right after a scheduling transaction commits.
+     */
+    public void wakeUp() {
+        wakeUpRequested.set(true);
+        wakeUpExecutor.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void drain() {
+        // One drain at a time per node (nodes are kept apart by claims); a wake-up that arrives meanwhile makes the running drain go again
+        if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            do {
+                wakeUpRequested.set(false);
+                drainDueEntries();
+            } while (wakeUpRequested.get());
+        } catch (RuntimeException e) {
+            System.err.println("Calendar outbox drain failed: " + e.getMessage());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainDueEntries() {
+        List<CalendarOutboxEntry> batch;
+        do {
+            batch = outboxRepository.findUnclaimedDue(
+                CalendarOutboxEntry.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize)
+            );
+            for (CalendarOutboxEntry entry : batch) {
+                if (!claim(entry) || waitsForEarlierWrite(entry)) {
+                    continue;
+                }
+                UserContext.runAs(entry.getUser().getEmail(), () -> dispatch(entry));
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // False if another node claimed the row first, or it was cancelled since it was read
+    private boolean claim(CalendarOutboxEntry entry) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> outboxRepository.claim(
+            entry.getId(), CalendarOutboxEntry.Status.PENDING, nodeId, now.plusSeconds(claimSeconds), now
+        ));
+        return claimed != null && claimed == 1;
+    }
+
+    // While an earlier write to the same event is still pending (e.g. in backoff), a later one is pushed back behind it
+    private boolean waitsForEarlierWrite(CalendarOutboxEntry entry) {
+        Optional<CalendarOutboxEntry> earlier = outboxRepository.findFirstByGoogleEventIdAndStatusAndIdLessThanOrderByIdAsc(
+            entry.getGoogleEventId(), CalendarOutboxEntry.Status.PENDING, entry.getId()
+        );
+        if (earlier.isEmpty()) {
+            return false;
+        }
+        LocalDateTime soonest = LocalDateTime.now().plusSeconds(baseBackoffSeconds);
+        LocalDateTime earlierAttempt = earlier.get().getNextAttemptAt();
+        updateClaimed(entry, current -> current.setNextAttemptAt(earlierAttempt.isAfter(soonest) ? earlierAttempt : soonest));
+        return true;
+    }
+
+    private void dispatch(CalendarOutboxEntry entry) {
+        try {
+            String etag = apply(entry);
+            markDone(entry, etag);
+        } catch (GoogleJsonResponseException e) {
+            int status = e.getStatusCode();
+            if (status == 409 && entry.getOperation() == CalendarOutboxEntry.Operation.INSERT_EVENT) {
+                // The ID belongs to an event that was deleted in Google, see insertOrFetch
+                markFailed(entry, "Event was deleted in Google Calendar before it was scheduled");
+            } else if ((status == 404 || status == 410) && entry.getOperation() == CalendarOutboxEntry.Operation.DELETE_EVENT) {
+                markDone(entry, null);
+            } else if (status == 412) {
+                markFailed(entry, "Event was changed in Google Calendar since it was scheduled (ETag mismatch)");
+            } else if (status == 400 || status == 404) {
+                markFailed(entry, status + " " + e.getStatusMessage());
+            } else {
+                scheduleRetry(entry, status + " " + e.getStatusMessage());
+            }
+        } catch (GoogleCalendarUnavailableException e) {
+            // Not sent at all, so the attempt doesn't count towards maxAttempts
+            updateClaimed(entry, current -> {
+                current.setNextAttemptAt(LocalDateTime.now().plus(e.getRetryAfter()));
+                current.setLastError(truncate(e.getMessage()));
+            });
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            scheduleRetry(entry, e.getMessage());
+        }
+    }
+
+    // Applies one write and returns the event's new ETag (null for deletes)
+    private String apply(CalendarOutboxEntry entry) throws IOException, GeneralSecurityException {
+        ZoneId zone = ZoneId.of(entry.getTimeZone());
+        ZonedDateTime start = entry.getStartTime().atZone(zone);
+        ZonedDateTime end = entry.getEndTime().atZone(zone);
+
+        return switch (entry.getOperation()) {
+            case INSERT_EVENT -> insertOrFetch(entry, start, end);
+            case PATCH_EVENT -> googleCalendarService.patchEvent(
+                entry.getCalendarId(), entry.getGoogleEventId(), entry.getIfMatchEtag(),
+                entry.getSummary(), entry.getDescription(), start, end
+            ).getEtag();
+            case DELETE_EVENT -> {
+                googleCalendarService.deleteEvent(entry.getCalendarId(), entry.getGoogleEventId(), entry.getIfMatchEtag());
+                yield null;
+            }
+        };
+    }
+
+    private String insertOrFetch(CalendarOutboxEntry entry, ZonedDateTime start, ZonedDateTime end)
+            throws IOException, GeneralSecurityException {
+        try {
+            return googleCalendarService.createEvent(
+                entry.getCalendarId(), entry.getGoogleEventId(), entry.getSummary(), entry.getDescription(), start, end
+            ).getEtag();
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() != 409) {
+                throw e;
+            }
+            // An earlier attempt already created the event; writes queued behind need its ETag for If-Match
+            Optional<Event> existing = googleCalendarService.getEvent(entry.getCalendarId(), entry.getGoogleEventId());
+            if (existing.isEmpty() || "cancelled".equals(existing.get().getStatus())) {
+                throw e;
+            }
+            return existing.get().getEtag();
+        }
+    }
+
+    private void markDone(CalendarOutboxEntry entry, String etag) {
+        boolean updated = updateClaimed(entry, current -> {
+            current.setStatus(CalendarOutboxEntry.Status.DONE);
+            current.setAttempts(current.getAttempts() + 1);
+            current.setProcessedAt(LocalDateTime.now());
+            current.setLastError(null);
+
+            if (etag != null) {
+                calendarEventRepository.findByGoogleEventId(entry.getGoogleEventId())
+                    .ifPresent(event -> event.setEtag(etag));
+                // Writes queued behind this one were planned against the version it just replaced
+                for (CalendarOutboxEntry later : outboxRepository.findByGoogleEventIdAndStatus(
+                        entry.getGoogleEventId(), CalendarOutboxEntry.Status.PENDING)) {
+                    if (!later.getId().equals(entry.getId()) && Objects.equals(later.getIfMatchEtag(), entry.getIfMatchEtag())) {
+                        later.setIfMatchEtag(etag);
+                    }
+                }
+            }
+        });
+        if (updated) {
+            journal.append(JournalRecord.of(JournalRecord.Type.APPLIED, entry, etag));
+        }
+    }
+
+    private void scheduleRetry(CalendarOutboxEntry entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            markFailed(entry, error);
+            return;
+        }
+        long backoff = Math.min(MAX_BACKOFF_SECONDS, baseBackoffSeconds << Math.min(attempts - 1, 20));
+        System.err.println("Calendar outbox entry " + entry.getId() + " failed (attempt " + attempts + "), retrying in "
+            + backoff + "s: " + error);
+        updateClaimed(entry, current -> {
+            current.setAttempts(attempts);
+            current.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+            current.setLastError(truncate(error));
+        });
+    }
+
+    private void markFailed(CalendarOutboxEntry entry, String error) {
+        System.err.println("Calendar outbox entry " + entry.getId() + " failed permanently: " + error);
+        boolean updated = updateClaimed(entry, current -> {
+            current.setStatus(CalendarOutboxEntry.Status.FAILED);
+            current.setAttempts(current.getAttempts() + 1);
+            current.setProcessedAt(LocalDateTime.now());
+            current.setLastError(truncate(error));
+
+            calendarEventRepository.findByGoogleEventId(entry.getGoogleEventId())
+                .ifPresent(event -> analyticsService.setStatus(event.getTask(), Task.TaskStatus.FAILED));
+        });
+        if (updated) {
+            journal.append(JournalRecord.of(JournalRecord.Type.FAILED, entry, error));
+        }
+    }
+
+    /**
+     * Re-reads the row in a new transaction and, if this node still holds its claim and it is still
+     * PENDING, applies {@code change} and releases the claim. Returns false if the row was changed
+     * meanwhile (e.g. cancelled), which then stands.
+     */
+    private boolean updateClaimed(CalendarOutboxEntry entry, Consumer<CalendarOutboxEntry> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Boolean updated = transactionTemplate.execute(status -> {
+                    CalendarOutboxEntry current = outboxRepository.findById(entry.getId()).orElse(null);
+                    if (current == null || current.getStatus() != CalendarOutboxEntry.Status.PENDING
+                            || !nodeId.equals(current.getClaimedBy())) {
+                        return false;
+                    }
+                    change.accept(current);
+                    current.setClaimedBy(null);
+                    current.setClaimedUntil(null);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(updated)) {
+                    return true;
+                }
+                break;
+            } catch (OptimisticLockingFailureException e) {
+                // A row this one touches changed between our read and write; read it again
+                if (attempt == 3) {
+                    throw e;
+                }
+            }
+        }
+        System.err.println("Calendar outbox entry " + entry.getId() + " changed while it was being sent; keeping that change");
+        return false;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeUpExecutor.shutdownNow();
+    }
+}
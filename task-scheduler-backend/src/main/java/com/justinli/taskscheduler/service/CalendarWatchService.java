@@ -0,0 +1,200 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.calendar.model.Channel;
+import com.justinli.taskscheduler.model.CalendarWatchChannel;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.CalendarWatchChannelRepository;
+import com.justinli.taskscheduler.security.UserContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps Google push notification channels open on the calendars we read, so their busy intervals can
+ * be cached until Google reports a change. Channels are renewed shortly before they expire.
+ * Watching is off unless {@code app.calendar.watch.webhook-url} is set to a public HTTPS address.
+ */
+@Service
+public class CalendarWatchService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final CalendarWatchChannelRepository channelRepository;
+    private final GoogleCalendarService googleCalendarService;
+    private final CalendarBusyCache busyCache;
+    private final UserService userService;
+    private final String webhookUrl;
+    private final long ttlSeconds;
+    private final long renewBeforeSeconds;
+
+    public CalendarWatchService(
+        CalendarWatchChannelRepository channelRepository,
+        GoogleCalendarService googleCalendarService,
+        CalendarBusyCache busyCache,
+        UserService userService,
+        @Value("${app.calendar.watch.webhook-url:}") String webhookUrl,
+        @Value("${app.calendar.watch.ttl-seconds:86400}") long ttlSeconds,
+        @Value("${app.calendar.watch.renew-before-seconds:3600}") long renewBeforeSeconds
+    ) {
+        this.channelRepository = channelRepository;
+        this.googleCalendarService = googleCalendarService;
+        this.busyCache = busyCache;
+        this.userService = userService;
+        this.webhookUrl = webhookUrl;
+        this.ttlSeconds = ttlSeconds;
+        this.renewBeforeSeconds = renewBeforeSeconds;
+    }
+
+    public boolean isEnabled() {
+        return webhookUrl != null && !webhookUrl.isBlank();
+    }
+
+    /**
+     * Watches a calendar for the current user, reusing a channel that is not about to expire.
+     */
+    public CalendarWatchChannel watch(String calendarId) throws IOException, GeneralSecurityException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Calendar watching is disabled (app.calendar.watch.webhook-url is not set).");
+        }
+        User user = userService.getCurrentUserOrDefault();
+
+        Optional<CalendarWatchChannel> current = channelRepository.findFirstByUserAndCalendarIdOrderByExpirationDesc(user, calendarId);
+        if (current.isPresent() && current.get().getExpiration().isAfter(LocalDateTime.now().plusSeconds(renewBeforeSeconds))) {
+            return current.get();
+        }
+        return openChannel(user, calendarId);
+    }
+
+    public void unwatch(String calendarId) {
+        User user = userService.getCurrentUserOrDefault();
+        for (CalendarWatchChannel channel : channelRepository.findByUser(user)) {
+            if (channel.getCalendarId().equals(calendarId)) {
+                close(channel);
+            }
+        }
+        busyCache.unwatch(user.getEmail(), calendarId);
+    }
+
+    /**
+     * Handles a push notification. Returns false if the channel is unknown or the token doesn't match.
+     * The first message on a channel ({@code sync}) only confirms it is open.
+     */
+    public boolean handleNotification(String channelId, String token, String resourceId, String resourceState) {
+        Optional<CalendarWatchChannel> found = channelRepository.findByChannelId(channelId);
+        if (found.isEmpty()) {
+            stopQuietly(channelId, resourceId);
+            return false;
+        }
+        CalendarWatchChannel channel = found.get();
+        if (token == null || !MessageDigest.isEqual(
+                channel.getToken().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        if (!"sync".equals(resourceState)) {
+            // Other nodes find the change through lastNotifiedAt, see CalendarBusyCache
+            channel.setLastNotifiedAt(LocalDateTime.now());
+            channelRepository.save(channel);
+            googleCalendarService.checkNotified(channel.getUser().getEmail(), channel.getCalendarId());
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.calendar.watch.renew-check-interval-ms:600000}")
+    public void renewExpiringChannels() {
+        LocalDateTime now = LocalDateTime.now();
+        for (CalendarWatchChannel channel : channelRepository.findByExpirationBefore(now.plusSeconds(renewBeforeSeconds))) {
+            try {
+                // Renewals have no request user, so Google calls run with the channel owner's credentials
+                UserContext.runAs(channel.getUser().getEmail(), () -> {
+                    if (isEnabled()) {
+                        // The new channel is open before the old one stops, so no change goes unnoticed
+                        openChannel(channel.getUser(), channel.getCalendarId());
+                    }
+                    close(channel);
+                });
+            } catch (Exception e) {
+                System.err.println("Failed to renew watch channel for calendar " + channel.getCalendarId() + ": " + e.getMessage());
+                if (channel.getExpiration().isBefore(now)) {
+                    channelRepository.delete(channel);
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreWatchedCalendars() {
+        for (CalendarWatchChannel channel : channelRepository.findByExpirationAfter(LocalDateTime.now())) {
+            busyCache.watch(channel.getUser().getEmail(), channel.getCalendarId(), toInstant(channel.getExpiration()));
+        }
+    }
+
+    private CalendarWatchChannel openChannel(User user, String calendarId) throws IOException, GeneralSecurityException {
+        String channelId = UUID.randomUUID().toString();
+        String token = newToken();
+        Channel opened = googleCalendarService.watchEvents(calendarId, channelId, token, webhookUrl, ttlSeconds);
+
+        Instant expiration = opened.getExpiration() != null
+            ? Instant.ofEpochMilli(opened.getExpiration())
+            : Instant.now().plusSeconds(ttlSeconds);
+
+        CalendarWatchChannel channel = new CalendarWatchChannel();
+        channel.setChannelId(channelId);
+        channel.setResourceId(opened.getResourceId());
+        channel.setCalendarId(calendarId);
+        channel.setToken(token);
+        channel.setExpiration(LocalDateTime.ofInstant(expiration, ZoneId.systemDefault()));
+        channel.setUser(user);
+        CalendarWatchChannel saved = channelRepository.save(channel);
+
+        // Changes made before the channel opened were not notified
+        busyCache.invalidate(user.getEmail(), calendarId);
+        busyCache.watch(user.getEmail(), calendarId, expiration);
+        return saved;
+    }
+
+    private void close(CalendarWatchChannel channel) {
+        stopQuietly(channel.getChannelId(), channel.getResourceId());
+        channelRepository.delete(channel);
+    }
+
+    private void stopQuietly(String channelId, String resourceId) {
+        if (resourceId == null) {
+            return;
+        }
+        try {
+            googleCalendarService.stopChannel(channelId, resourceId);
+        } catch (GoogleJsonResponseException e) {
+            // 404: already expired or stopped
+            if (e.getStatusCode() != 404) {
+                System.err.println("Failed to stop watch channel " + channelId + ": " + e.getMessage());
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to stop watch channel " + channelId + ": " + e.getMessage());
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
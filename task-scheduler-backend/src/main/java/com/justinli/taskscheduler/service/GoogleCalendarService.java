@@ -5,22 +5,31 @@ import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.CalendarScopes;
 import com.google.api.services.calendar.model.*;
 import com.justinli.taskscheduler.dto.CalendarStatusResponse;
+import com.justinli.taskscheduler.exception.GoogleCalendarUnavailableException;
+import com.justinli.taskscheduler.repository.CalendarWatchChannelRepository;
+import com.justinli.taskscheduler.scheduling.AvailabilityIndex;
+import com.justinli.taskscheduler.scheduling.AvailabilityTemplate;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import com.justinli.taskscheduler.scheduling.TimeSlot;
+import com.justinli.taskscheduler.security.JwtUtil;
+import com.justinli.taskscheduler.security.UserContext;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -32,117 +41,193 @@ import java.util.stream.Collectors;
 public class GoogleCalendarService {
 
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
-    private static final String DEFAULT_USER = "default-user";
 
-    private final GoogleAuthorizationCodeFlow authorizationCodeFlow;
+    private final UserCredentialDataStoreFactory credentialDataStoreFactory;
+    private final JdkHttpTransport httpTransport;
+    private final String credentialsFilePath;
     private final String redirectUri;
     private final String applicationName;
+    private final CalendarBusyCache busyCache;
+    private final CalendarWatchChannelRepository channelRepository;
+    private final JwtUtil jwtUtil;
+
+    // Built on first use (see flow()), so startup doesn't read client secrets or load the trust store
+    private volatile GoogleAuthorizationCodeFlow authorizationCodeFlow;
 
     public GoogleCalendarService(
+        CalendarBusyCache busyCache,
+        CalendarWatchChannelRepository channelRepository,
+        UserCredentialDataStoreFactory credentialDataStoreFactory,
+        JdkHttpTransport httpTransport,
+        JwtUtil jwtUtil,
         @Value("${google.calendar.credentials.file.path}") String credentialsFilePath,
         @Value("${app.oauth.redirect-uri:http://localhost:8080/api/calendars/oauth2callback}") String redirectUri,
-        @Value("${app.oauth.tokens-dir:${user.home}/.task-scheduler-google}") String tokensDirectory,
         @Value("${google.calendar.application.name:Task Scheduler}") String applicationName
     ) {
+        this.credentialDataStoreFactory = credentialDataStoreFactory;
+        this.httpTransport = httpTransport;
+        this.credentialsFilePath = credentialsFilePath;
         this.redirectUri = redirectUri;
         this.applicationName = applicationName;
+        this.busyCache = busyCache;
+        this.channelRepository = channelRepository;
+        this.jwtUtil = jwtUtil;
+    }
 
-        try (FileInputStream inputStream = new FileInputStream(credentialsFilePath)) {
-            var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            File tokensDir = new File(tokensDirectory);
-            if (!tokensDir.exists()) {
-                tokensDir.mkdirs();
+    private GoogleAuthorizationCodeFlow flow() {
+        GoogleAuthorizationCodeFlow flow = authorizationCodeFlow;
+        if (flow == null) {
+            synchronized (this) {
+                flow = authorizationCodeFlow;
+                if (flow == null) {
+                    flow = createFlow();
+                    authorizationCodeFlow = flow;
+                }
             }
+        }
+        return flow;
+    }
 
+    private GoogleAuthorizationCodeFlow createFlow() {
+        try (FileInputStream inputStream = new FileInputStream(credentialsFilePath)) {
             GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(
                 JSON_FACTORY,
                 new InputStreamReader(inputStream)
             );
 
-            this.authorizationCodeFlow = new GoogleAuthorizationCodeFlow.Builder(
+            // The flow's transport is shared by every Calendar client built afterwards
+            return new GoogleAuthorizationCodeFlow.Builder(
                 httpTransport,
                 JSON_FACTORY,
                 clientSecrets,
                 Collections.singleton(CalendarScopes.CALENDAR)
             )
-                .setDataStoreFactory(new FileDataStoreFactory(tokensDir))
+                .setDataStoreFactory(credentialDataStoreFactory)
+                .setRequestInitializer(httpTransport.withTimeouts(null)) // token and refresh requests
                 .setAccessType("offline")
                 .setApprovalPrompt("force")
                 .build();
 
-        } catch (IOException | GeneralSecurityException e) {
+        } catch (IOException e) {
             throw new IllegalStateException("Failed to initialize Google Calendar service: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Consent URL for the current user. The signed {@code state} tells the callback, which arrives
+     * without our JWT, whose credentials it is storing.
+     */
     public String buildAuthorizationUrl() {
-        AuthorizationCodeRequestUrl url = authorizationCodeFlow.newAuthorizationUrl();
+        AuthorizationCodeRequestUrl url = flow().newAuthorizationUrl();
         url.setRedirectUri(redirectUri);
+        url.setState(jwtUtil.generateOAuthState(UserContext.currentEmail()));
         return url.build();
     }
 
-    public void handleOAuthCallback(String code) throws IOException {
-        TokenResponse tokenResponse = authorizationCodeFlow
+    /**
+     * Exchanges the code and stores the credentials for the user named in {@code state}.
+     * Returns that user's email.
+     */
+    public String handleOAuthCallback(String code, String state) throws IOException {
+        String email;
+        try {
+            email = jwtUtil.extractOAuthStateEmail(state);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IOException("Invalid or expired OAuth state", e);
+        }
+
+        GoogleAuthorizationCodeFlow flow = flow();
+        TokenResponse tokenResponse = flow
             .newTokenRequest(code)
             .setRedirectUri(redirectUri)
             .execute();
 
-        authorizationCodeFlow.createAndStoreCredential(tokenResponse, DEFAULT_USER);
+        flow.createAndStoreCredential(tokenResponse, email);
+        return email;
     }
 
     public CalendarStatusResponse getConnectionStatus() {
         CalendarStatusResponse response = new CalendarStatusResponse();
         try {
-            Credential credential = authorizationCodeFlow.loadCredential(DEFAULT_USER);
+            Credential credential = flow().loadCredential(UserContext.currentEmail());
             if (credential == null || credential.getAccessToken() == null) {
                 response.setConnected(false);
                 response.setMessage("No Google Calendar connection found.");
                 return response;
             }
 
-            boolean refreshAttempted = false;
-            if (credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() <= 60) {
-                refreshAttempted = credential.refreshToken();
-            }
+            // Tokens are renewed ahead of expiry by GoogleTokenRefresher, never inline here
+            boolean expired = credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() <= 0;
 
             response.setConnected(true);
             response.setLastSynced(LocalDateTime.now().toString());
-            response.setMessage(refreshAttempted ? "Token refreshed successfully." : "Token is valid.");
+            response.setMessage(expired ? "Token expired; it is being refreshed." : "Token is valid.");
         } catch (IOException e) {
             response.setConnected(false);
             response.setMessage("Unable to read stored credentials: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            response.setConnected(false);
+            response.setMessage(e.getMessage());
         }
         return response;
     }
 
+    /**
+     * Refreshes the current user's access token now. The flow's refresh listener writes the new
+     * token through to the credential store. Returns false if there is nothing to refresh.
+     */
+    public boolean refreshCredential() throws IOException {
+        Credential credential = flow().loadCredential(UserContext.currentEmail());
+        if (credential == null || credential.getRefreshToken() == null) {
+            return false;
+        }
+        return credential.refreshToken();
+    }
+
     private Calendar getCalendarService() throws IOException, GeneralSecurityException {
-        Credential credential = authorizationCodeFlow.loadCredential(DEFAULT_USER);
+        GoogleAuthorizationCodeFlow flow = flow();
+        Credential credential = flow.loadCredential(UserContext.currentEmail());
         if (credential == null) {
             throw new IllegalStateException("Not connected to Google Calendar. Please connect first.");
         }
 
         return new Calendar.Builder(
-            GoogleNetHttpTransport.newTrustedTransport(),
+            flow.getTransport(),
             JSON_FACTORY,
-            credential
+            httpTransport.withTimeouts(credential)
         )
             .setApplicationName(applicationName)
             .build();
     }
 
     public List<CalendarListEntry> getCalendarList() throws IOException, GeneralSecurityException {
+        return getCalendarListPage().getItems();
+    }
+
+    // Full response, including the collection ETag
+    public CalendarList getCalendarListPage() throws IOException, GeneralSecurityException {
         Calendar service = getCalendarService();
-        CalendarList calendarList = service.calendarList().list().execute();
-        return calendarList.getItems();
+        return service.calendarList().list().execute();
     }
 
     public Event createEvent(String calendarId, String summary, String description,
                             ZonedDateTime startTime, ZonedDateTime endTime)
             throws IOException, GeneralSecurityException {
+        return createEvent(calendarId, null, summary, description, startTime, endTime);
+    }
+
+    /**
+     * Inserts an event, optionally with a client-assigned ID (base32hex, 5-1024 chars). Retrying an
+     * insert with the same ID fails with 409 instead of creating a duplicate, which makes it idempotent.
+     */
+    public Event createEvent(String calendarId, String eventId, String summary, String description,
+                            ZonedDateTime startTime, ZonedDateTime endTime)
+            throws IOException, GeneralSecurityException {
 
         Calendar service = getCalendarService();
 
         Event event = new Event()
+            .setId(eventId)
             .setSummary(summary)
             .setDescription(description);
 
@@ -162,52 +247,181 @@ public class GoogleCalendarService {
     public Event updateEvent(String calendarId, String eventId, String summary,
                             String description, ZonedDateTime startTime, ZonedDateTime endTime)
             throws IOException, GeneralSecurityException {
+        return patchEvent(calendarId, eventId, null, summary, description, startTime, endTime);
+    }
 
-        Calendar service = getCalendarService();
+    /**
+     * Sends only the non-null fields as a PATCH. With an ETag the write is conditional (If-Match) and
+     * fails with 412 if the event was changed since that ETag was issued.
+     */
+    public Event patchEvent(String calendarId, String eventId, String etag, String summary,
+                           String description, ZonedDateTime startTime, ZonedDateTime endTime)
+            throws IOException, GeneralSecurityException {
 
-        Event event = service.events().get(calendarId, eventId).execute();
+        Calendar service = getCalendarService();
 
+        Event patch = new Event();
         if (summary != null) {
-            event.setSummary(summary);
+            patch.setSummary(summary);
         }
         if (description != null) {
-            event.setDescription(description);
+            patch.setDescription(description);
         }
         if (startTime != null) {
             EventDateTime start = new EventDateTime()
                 .setDateTime(new com.google.api.client.util.DateTime(Date.from(startTime.toInstant())))
                 .setTimeZone(startTime.getZone().getId());
-            event.setStart(start);
+            patch.setStart(start);
         }
         if (endTime != null) {
             EventDateTime end = new EventDateTime()
                 .setDateTime(new com.google.api.client.util.DateTime(Date.from(endTime.toInstant())))
                 .setTimeZone(endTime.getZone().getId());
-            event.setEnd(end);
+            patch.setEnd(end);
         }
 
-        return service.events().update(calendarId, eventId, event).execute();
+        Calendar.Events.Patch request = service.events().patch(calendarId, eventId, patch);
+        if (etag != null) {
+            request.getRequestHeaders().setIfMatch(etag);
+        }
+        return request.execute();
     }
 
     public void deleteEvent(String calendarId, String eventId)
             throws IOException, GeneralSecurityException {
+        deleteEvent(calendarId, eventId, null);
+    }
+
+    public void deleteEvent(String calendarId, String eventId, String etag)
+            throws IOException, GeneralSecurityException {
         Calendar service = getCalendarService();
-        service.events().delete(calendarId, eventId).execute();
+        Calendar.Events.Delete request = service.events().delete(calendarId, eventId);
+        if (etag != null) {
+            request.getRequestHeaders().setIfMatch(etag);
+        }
+        request.execute();
+    }
+
+    /**
+     * The event, including a deleted one (status "cancelled"), or empty if Google has no such event.
+     */
+    public Optional<Event> getEvent(String calendarId, String eventId) throws IOException, GeneralSecurityException {
+        Calendar service = getCalendarService();
+        try {
+            return Optional.of(service.events().get(calendarId, eventId).execute());
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 404 || e.getStatusCode() == 410) {
+                return Optional.empty();
+            }
+            throw e;
+        }
     }
 
     public List<Event> getEvents(String calendarId, ZonedDateTime timeMin, ZonedDateTime timeMax)
             throws IOException, GeneralSecurityException {
+        return listEvents(calendarId, timeMin, timeMax).getItems();
+    }
+
+    // Full response, including the collection ETag
+    public Events listEvents(String calendarId, ZonedDateTime timeMin, ZonedDateTime timeMax)
+            throws IOException, GeneralSecurityException {
 
         Calendar service = getCalendarService();
 
-        Events events = service.events().list(calendarId)
+        return service.events().list(calendarId)
             .setTimeMin(new com.google.api.client.util.DateTime(Date.from(timeMin.toInstant())))
             .setTimeMax(new com.google.api.client.util.DateTime(Date.from(timeMax.toInstant())))
             .setOrderBy("startTime")
             .setSingleEvents(true)
             .execute();
+    }
+
+    /**
+     * Opens a push notification channel on a calendar's events. Google then POSTs to {@code address}
+     * whenever an event changes, until the returned channel's expiration.
+     */
+    public Channel watchEvents(String calendarId, String channelId, String token, String address, long ttlSeconds)
+            throws IOException, GeneralSecurityException {
+
+        Calendar service = getCalendarService();
+
+        Channel channel = new Channel()
+            .setId(channelId)
+            .setType("web_hook")
+            .setAddress(address)
+            .setToken(token)
+            .setParams(Map.of("ttl", String.valueOf(ttlSeconds)));
+
+        return service.events().watch(calendarId, channel).execute();
+    }
+
+    public void stopChannel(String channelId, String resourceId) throws IOException, GeneralSecurityException {
+        Calendar service = getCalendarService();
+        service.channels().stop(new Channel().setId(channelId).setResourceId(resourceId)).execute();
+    }
+
+    /**
+     * Timed events on a calendar as busy intervals. Served from {@link CalendarBusyCache} while the
+     * calendar is watched, otherwise read from Google by {@link CalendarBusyReader}.
+     */
+    public List<BusyInterval> getBusyIntervals(String calendarId, ZonedDateTime timeMin, ZonedDateTime timeMax)
+            throws IOException, GeneralSecurityException {
+
+        String userEmail = UserContext.currentEmail();
+        Instant from = timeMin.toInstant();
+        Instant to = timeMax.toInstant();
+        checkNotified(userEmail, calendarId);
+        Optional<List<BusyInterval>> cached = busyCache.get(userEmail, calendarId, from, to);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // After a restart, a snapshot entry only needs Google to confirm nothing changed since
+        Optional<Instant> restoredFetchedAt = busyCache.restoredFetchedAt(userEmail, calendarId, from, to);
+        if (restoredFetchedAt.isPresent()) {
+            long generation = busyCache.generation(userEmail, calendarId);
+            if (isUnchangedSince(calendarId, restoredFetchedAt.get())) {
+                busyCache.promote(userEmail, calendarId, generation);
+                cached = busyCache.get(userEmail, calendarId, from, to);
+                if (cached.isPresent()) {
+                    return cached.get();
+                }
+            } else {
+                busyCache.discardRestored(userEmail, calendarId);
+            }
+        }
+
+        long generation = busyCache.generation(userEmail, calendarId);
+        Instant fetchedAt = Instant.now();
+        List<BusyInterval> busy = CalendarBusyReader.read(getCalendarService(), calendarId, from, to);
+        busyCache.put(userEmail, calendarId, generation, from, to, fetchedAt, busy);
+        return busy;
+    }
+
+    /**
+     * Drops the cached busy time of a watched calendar if a push notification for it was recorded since
+     * this node last looked, whichever node received it.
+     */
+    public void checkNotified(String userEmail, String calendarId) {
+        if (busyCache.isWatched(userEmail, calendarId)) {
+            busyCache.checkNotified(userEmail, calendarId,
+                channelRepository.findLastNotifiedAt(userEmail, calendarId).orElse(null));
+        }
+    }
 
-        return events.getItems();
+    /**
+     * Whether the current user's calendar is known to be unchanged since {@code since}. False when
+     * Google can't tell, e.g. because {@code since} is too long ago.
+     */
+    public boolean isUnchangedSince(String calendarId, Instant since) throws IOException, GeneralSecurityException {
+        try {
+            return !CalendarBusyReader.changedSince(getCalendarService(), calendarId, since);
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 400 || e.getStatusCode() == 410) {
+                return false;
+            }
+            throw e;
+        }
     }
 
     public List<Event> getEventsFromCalendars(List<String> calendarIds, ZonedDateTime timeMin, ZonedDateTime timeMax)
@@ -233,9 +447,8 @@ public class GoogleCalendarService {
                     System.out.println("  Found " + calendarEvents.size() + " events in calendar: " + calendarId);
                     allEvents.addAll(calendarEvents);
                 }
-            } catch (Exception e) {
-                System.err.println("  Error fetching events from calendar " + calendarId + ": " + e.getMessage());
-                // Continue with other calendars even if one fails
+            } catch (IOException e) {
+                throw unreadable(calendarId, e);
             }
         }
 
@@ -257,230 +470,128 @@ public class GoogleCalendarService {
         return allEvents;
     }
 
-    public List<Map<String, ZonedDateTime>> findFreeTimeSlots(
-            String calendarId,
-            ZonedDateTime searchStart,
-            ZonedDateTime searchEnd,
-            int workStartHour,
-            int workEndHour,
-            int minSlotDurationMinutes,
-            List<String> conflictCalendarIds,
-            int breakTimeMinutes
-    ) throws IOException, GeneralSecurityException {
-
-        // Fetch events from the specified calendars for conflict detection
-        List<Event> events;
-        if (conflictCalendarIds != null && !conflictCalendarIds.isEmpty()) {
-            System.out.println("Checking specific calendars for conflicts: " + conflictCalendarIds);
-            events = getEventsFromCalendars(conflictCalendarIds, searchStart, searchEnd);
-        } else {
-            System.out.println("Checking only target calendar: " + calendarId);
-            events = getEvents(calendarId, searchStart, searchEnd);
-        }
-
-        List<Map<String, ZonedDateTime>> freeSlots = new ArrayList<>();
-
-        ZonedDateTime current = searchStart;
-
-        while (current.isBefore(searchEnd)) {
-            ZonedDateTime dayStart = current.withHour(workStartHour).withMinute(0).withSecond(0);
-            ZonedDateTime dayEnd;
+    /**
+     * Queries the free/busy API for up to 50 calendars in a single request.
+     * Calendars Google reports errors for (not found, no access) are left out of the result.
+     */
+    public Map<String, List<BusyInterval>> getFreeBusy(List<String> calendarIds, ZonedDateTime timeMin, ZonedDateTime timeMax)
+            throws IOException, GeneralSecurityException {
 
-            // Handle overnight work hours (e.g., 11 AM to midnight)
-            if (workEndHour == 0) {
-                // workEndHour of 0 means midnight (end of day), so add 24 hours
-                dayEnd = current.withHour(23).withMinute(59).withSecond(59);
-            } else if (workEndHour < workStartHour) {
-                // Overnight shift (e.g., 10 PM to 6 AM)
-                dayEnd = current.plusDays(1).withHour(workEndHour).withMinute(0).withSecond(0);
-            } else {
-                // Normal same-day hours
-                dayEnd = current.withHour(workEndHour).withMinute(0).withSecond(0);
-            }
+        Calendar service = getCalendarService();
 
-            if (dayStart.isBefore(searchStart)) {
-                dayStart = searchStart;
-            }
-            if (dayEnd.isAfter(searchEnd)) {
-                dayEnd = searchEnd;
-            }
+        FreeBusyRequest request = new FreeBusyRequest()
+            .setTimeMin(new com.google.api.client.util.DateTime(Date.from(timeMin.toInstant())))
+            .setTimeMax(new com.google.api.client.util.DateTime(Date.from(timeMax.toInstant())))
+            .setTimeZone(timeMin.getZone().getId())
+            .setItems(calendarIds.stream()
+                .map(id -> new FreeBusyRequestItem().setId(id))
+                .collect(Collectors.toList()));
 
-            final ZonedDateTime currentDay = current;
-            List<Event> dayEvents = events.stream()
-                .filter(e -> {
-                    // Skip all-day events (they use 'date' instead of 'dateTime')
-                    if (e.getStart().getDateTime() == null) {
-                        return false;
-                    }
-                    ZonedDateTime eventStart = ZonedDateTime.parse(
-                        e.getStart().getDateTime().toString(),
-                        DateTimeFormatter.ISO_OFFSET_DATE_TIME
-                    );
-                    return eventStart.toLocalDate().equals(currentDay.toLocalDate());
-                })
-                .sorted(Comparator.comparing(e ->
-                    ZonedDateTime.parse(
-                        e.getStart().getDateTime().toString(),
-                        DateTimeFormatter.ISO_OFFSET_DATE_TIME
-                    )
-                ))
-                .collect(Collectors.toList());
-
-            ZonedDateTime slotStart = dayStart;
-
-            for (Event event : dayEvents) {
-                ZonedDateTime eventStart = ZonedDateTime.parse(
-                    event.getStart().getDateTime().toString(),
-                    DateTimeFormatter.ISO_OFFSET_DATE_TIME
-                );
-                ZonedDateTime eventEnd = ZonedDateTime.parse(
-                    event.getEnd().getDateTime().toString(),
-                    DateTimeFormatter.ISO_OFFSET_DATE_TIME
-                );
-
-                if (slotStart.isBefore(eventStart)) {
-                    long minutes = java.time.Duration.between(slotStart, eventStart).toMinutes();
-                    if (minutes >= minSlotDurationMinutes) {
-                        Map<String, ZonedDateTime> slot = new HashMap<>();
-                        slot.put("start", slotStart);
-                        slot.put("end", eventStart);
-                        freeSlots.add(slot);
-                    }
-                }
+        FreeBusyResponse response = service.freebusy().query(request).execute();
 
-                // Add break time after the event ends
-                if (eventEnd.isAfter(slotStart)) {
-                    slotStart = eventEnd.plusMinutes(breakTimeMinutes);
-                }
+        Map<String, List<BusyInterval>> busyByCalendar = new HashMap<>();
+        if (response.getCalendars() == null) {
+            return busyByCalendar;
+        }
+        for (Map.Entry<String, FreeBusyCalendar> entry : response.getCalendars().entrySet()) {
+            FreeBusyCalendar calendar = entry.getValue();
+            if (calendar.getErrors() != null && !calendar.getErrors().isEmpty()) {
+                System.err.println("  Free/busy unavailable for " + entry.getKey() + ": "
+                    + calendar.getErrors().get(0).getReason());
+                continue;
             }
-
-            if (slotStart.isBefore(dayEnd)) {
-                long minutes = java.time.Duration.between(slotStart, dayEnd).toMinutes();
-                if (minutes >= minSlotDurationMinutes) {
-                    Map<String, ZonedDateTime> slot = new HashMap<>();
-                    slot.put("start", slotStart);
-                    slot.put("end", dayEnd);
-                    freeSlots.add(slot);
+            List<BusyInterval> busy = new ArrayList<>();
+            if (calendar.getBusy() != null) {
+                for (TimePeriod period : calendar.getBusy()) {
+                    busy.add(new BusyInterval(
+                        Instant.ofEpochMilli(period.getStart().getValue()),
+                        Instant.ofEpochMilli(period.getEnd().getValue())
+                    ));
                 }
             }
-
-            current = current.plusDays(1);
+            busyByCalendar.put(entry.getKey(), busy);
         }
-
-        return freeSlots;
+        return busyByCalendar;
     }
 
-    public List<Event> scheduleTask(
+    public List<Map<String, ZonedDateTime>> findFreeTimeSlots(
             String calendarId,
-            String taskSummary,
-            String taskDescription,
-            double totalHours,
-            double maxSessionHours,
             ZonedDateTime searchStart,
             ZonedDateTime searchEnd,
-            int workStartHour,
-            int workEndHour,
+            AvailabilityTemplate availability,
+            int minSlotDurationMinutes,
             List<String> conflictCalendarIds,
             int breakTimeMinutes
     ) throws IOException, GeneralSecurityException {
 
-        int totalMinutes = (int) (totalHours * 60);
-        int maxSessionMinutes = (int) (maxSessionHours * 60);
-        int remainingMinutes = totalMinutes;
+        return findFreeSlots(
+            calendarId, searchStart, searchEnd, availability,
+            minSlotDurationMinutes, conflictCalendarIds, breakTimeMinutes
+        ).stream()
+            .map(TimeSlot::toMap)
+            .collect(Collectors.toList());
+    }
 
-        // Minimum slot duration should be at least 30 minutes or the smallest session we need
-        int minSlotDuration = Math.min(30, Math.min(remainingMinutes, maxSessionMinutes));
+    public List<TimeSlot> findFreeSlots(
+            String calendarId,
+            ZonedDateTime searchStart,
+            ZonedDateTime searchEnd,
+            AvailabilityTemplate availability,
+            int minSlotDurationMinutes,
+            List<String> conflictCalendarIds,
+            int breakTimeMinutes
+    ) throws IOException, GeneralSecurityException {
 
-        // Check specified calendars for conflicts, but schedule in the target calendar
-        List<Map<String, ZonedDateTime>> freeSlots = findFreeTimeSlots(
-            calendarId, searchStart, searchEnd, workStartHour, workEndHour, minSlotDuration, conflictCalendarIds, breakTimeMinutes
+        AvailabilityIndex index = buildAvailabilityIndex(
+            calendarId, searchStart, searchEnd, availability, conflictCalendarIds, breakTimeMinutes
         );
+        return index.freeSlots(minSlotDurationMinutes);
+    }
 
-        // Log free slots found for debugging
-        System.out.println("=== Task Scheduling Debug ===");
-        System.out.println("Total task duration: " + totalHours + " hours (" + totalMinutes + " minutes)");
-        System.out.println("Max session: " + maxSessionHours + " hours");
-        System.out.println("Work hours: " + workStartHour + ":00 - " + workEndHour + ":00");
-        System.out.println("Search range: " + searchStart + " to " + searchEnd);
-        System.out.println("Found " + freeSlots.size() + " free slots:");
-        for (int i = 0; i < freeSlots.size(); i++) {
-            Map<String, ZonedDateTime> slot = freeSlots.get(i);
-            ZonedDateTime start = slot.get("start");
-            ZonedDateTime end = slot.get("end");
-            long duration = java.time.Duration.between(start, end).toMinutes();
-            System.out.println("  Slot " + (i + 1) + ": " + start + " to " + end + " (" + duration + " minutes)");
-        }
-
-        List<Event> createdEvents = new ArrayList<>();
-        int sessionNumber = 1;
-        ZonedDateTime lastSessionEnd = null; // Track when the last session ended
-
-        for (Map<String, ZonedDateTime> slot : freeSlots) {
-            if (remainingMinutes <= 0) {
-                break;
-            }
-
-            ZonedDateTime slotStart = slot.get("start");
-            ZonedDateTime slotEnd = slot.get("end");
-
-            // If we have a previous session, ensure break time between sessions
-            if (lastSessionEnd != null) {
-                ZonedDateTime earliestNextStart = lastSessionEnd.plusMinutes(breakTimeMinutes);
-                if (slotStart.isBefore(earliestNextStart)) {
-                    // Adjust slot start to respect break time
-                    slotStart = earliestNextStart;
-
-                    // If adjusted start is beyond slot end, skip this slot
-                    if (!slotStart.isBefore(slotEnd)) {
-                        System.out.println("  Skipping slot (no room after break time): " + slot.get("start") + " to " + slotEnd);
-                        continue;
-                    }
-                }
-            }
-
-            long slotDuration = java.time.Duration.between(slotStart, slotEnd).toMinutes();
-
-            // Calculate what we actually need for this session
-            int neededSessionDuration = Math.min(remainingMinutes, maxSessionMinutes);
+    public AvailabilityIndex buildAvailabilityIndex(
+            String calendarId,
+            ZonedDateTime searchStart,
+            ZonedDateTime searchEnd,
+            AvailabilityTemplate availability,
+            List<String> conflictCalendarIds,
+            int breakTimeMinutes
+    ) throws IOException, GeneralSecurityException {
 
-            // Skip slots that can't fit the full session we need
-            // Only use slots that can fit at least 30 minutes AND the session we're trying to schedule
-            if (slotDuration < neededSessionDuration) {
-                System.out.println("  Skipping slot (too small): " + slotStart + " to " + slotEnd +
-                                 " (" + slotDuration + " min available, " + neededSessionDuration + " min needed)");
-                continue; // Skip this slot - not big enough for our needed session
+        // Fetch busy time from the specified calendars for conflict detection
+        List<BusyInterval> busyIntervals = new ArrayList<>();
+        List<String> calendarsToCheck;
+        if (conflictCalendarIds != null && !conflictCalendarIds.isEmpty()) {
+            System.out.println("Checking specific calendars for conflicts: " + conflictCalendarIds);
+            calendarsToCheck = conflictCalendarIds;
+        } else {
+            System.out.println("Checking only target calendar: " + calendarId);
+            calendarsToCheck = List.of(calendarId);
+        }
+        for (String conflictCalendarId : calendarsToCheck) {
+            try {
+                busyIntervals.addAll(getBusyIntervals(conflictCalendarId, searchStart, searchEnd));
+            } catch (IOException e) {
+                throw unreadable(conflictCalendarId, e);
             }
-
-            // Now we know the slot can fit our session
-            int sessionDuration = neededSessionDuration;
-            System.out.println("  Using slot: " + slotStart + " to " + slotEnd +
-                             " (scheduling " + sessionDuration + " minute session)");
-
-            ZonedDateTime sessionEnd = slotStart.plusMinutes(sessionDuration);
-
-            String eventSummary = String.format("%s (Session %d)", taskSummary, sessionNumber);
-            String eventDescription = String.format(
-                "%s\n\nSession %d of task - %.1f hours remaining",
-                taskDescription != null ? taskDescription : "",
-                sessionNumber,
-                remainingMinutes / 60.0
-            );
-
-            Event event = createEvent(calendarId, eventSummary, eventDescription, slotStart, sessionEnd);
-            createdEvents.add(event);
-
-            remainingMinutes -= sessionDuration;
-            lastSessionEnd = sessionEnd; // Update last session end time
-            sessionNumber++;
         }
 
-        if (remainingMinutes > 0) {
-            throw new IllegalStateException(
-                String.format("Could not schedule entire task. %.1f hours remaining unscheduled.",
-                remainingMinutes / 60.0)
-            );
-        }
+        return AvailabilityIndex.build(
+            searchStart, searchEnd, availability, breakTimeMinutes, busyIntervals
+        );
+    }
 
-        return createdEvents;
+    /**
+     * Scheduling around a conflict calendar we couldn't read would double-book it, so the search stops:
+     * with 400 if Google refused the calendar (not found, no access), otherwise with 503.
+     */
+    private static RuntimeException unreadable(String calendarId, IOException e) {
+        System.err.println("  Error fetching events from calendar " + calendarId + ": " + e.getMessage());
+        if (e instanceof GoogleJsonResponseException response && response.getStatusCode() < 500
+                && response.getStatusCode() != 429) {
+            return new IllegalArgumentException("Calendar " + calendarId + " can't be read: "
+                + response.getStatusCode() + " " + response.getStatusMessage(), e);
+        }
+        return new GoogleCalendarUnavailableException("Calendar " + calendarId + " couldn't be read; try again shortly.",
+            Duration.ofSeconds(5), e);
     }
 }
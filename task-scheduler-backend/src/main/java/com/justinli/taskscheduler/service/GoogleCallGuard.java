@@ -0,0 +1,259 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.exception.GoogleCalendarUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Isolates Google API calls from the rest of the application. Calls run on a bounded pool of their
+ * own (bulkhead) with a bounded queue, so however slow Google gets, it ties up at most
+ * {@code threads + queue} request threads, and task endpoints keep the rest.
+ *
+ * Each operation type (e.g. events-read, events-write, freebusy) has a circuit breaker over its last
+ * {@code window-size} calls. When at least {@code minimum-calls} were made and {@code failure-rate-percent}
+ * of them failed (I/O error, timeout, 429 or 5xx), the circuit opens: calls fail at once with
+ * {@link GoogleCalendarUnavailableException} for {@code open-seconds}, then a few trial calls decide
+ * whether it closes again.
+ *
+ * Meters: {@code google.http.client.circuit.state} (0 closed, 1 half-open, 2 open, per operation) and
+ * {@code google.http.client.rejected} (by operation and reason).
+ */
+@Component
+public class GoogleCallGuard {
+
+    private final ThreadPoolExecutor pool;
+    private final MeterRegistry meterRegistry;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public GoogleCallGuard(MeterRegistry meterRegistry,
+                           @Value("${app.google.bulkhead.threads:16}") int threads,
+                           @Value("${app.google.bulkhead.queue:32}") int queue,
+                           @Value("${app.google.circuit.window-size:20}") int windowSize,
+                           @Value("${app.google.circuit.minimum-calls:10}") int minimumCalls,
+                           @Value("${app.google.circuit.failure-rate-percent:50}") int failureRatePercent,
+                           @Value("${app.google.circuit.open-seconds:30}") long openSeconds,
+                           @Value("${app.google.circuit.half-open-calls:2}") int halfOpenCalls) {
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRatePercent = failureRatePercent;
+        this.openMillis = TimeUnit.SECONDS.toMillis(openSeconds);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queue),
+            runnable -> {
+                Thread thread = new Thread(runnable, "google-call-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        Gauge.builder("google.http.client.bulkhead.queued", pool, p -> p.getQueue().size())
+            .description("Google API calls waiting for a pool thread")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} on the Google pool and waits at most {@code maxWait} for it. {@code healthy}
+     * tells the circuit breaker whether a result counts as a success.
+     *
+     * @throws GoogleCalendarUnavailableException if the circuit is open or the pool and its queue are full
+     */
+    public <T> T call(String operation, Duration maxWait, Callable<T> call, Predicate<T> healthy) throws IOException {
+        CircuitBreaker breaker = breakers.computeIfAbsent(operation, this::newBreaker);
+        long permit = breaker.tryAcquire(System.currentTimeMillis());
+        if (permit < 0) {
+            reject(operation, "circuit_open");
+            throw new GoogleCalendarUnavailableException(
+                "Google Calendar is unavailable (" + operation + " calls are failing); try again shortly.",
+                Duration.ofMillis(breaker.retryAfterMillis(System.currentTimeMillis())));
+        }
+
+        Future<T> future;
+        try {
+            future = pool.submit(call);
+        } catch (RejectedExecutionException e) {
+            breaker.release(permit);
+            reject(operation, "bulkhead_full");
+            throw new GoogleCalendarUnavailableException(
+                "Too many Google Calendar requests in progress; try again shortly.", Duration.ofSeconds(1));
+        }
+
+        boolean success = false;
+        try {
+            T result = future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            success = healthy.test(result);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new HttpTimeoutException("Google " + operation + " call timed out after " + maxWait.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Google " + operation + " call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Google " + operation + " call failed: " + cause.getMessage(), cause);
+        } finally {
+            breaker.record(permit, success, System.currentTimeMillis());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private CircuitBreaker newBreaker(String operation) {
+        CircuitBreaker breaker = new CircuitBreaker();
+        Gauge.builder("google.http.client.circuit.state", breaker, b -> b.state().ordinal())
+            .description("Circuit state of a Google API operation: 0 closed, 1 half-open, 2 open")
+            .tag("operation", operation)
+            .register(meterRegistry);
+        return breaker;
+    }
+
+    private void reject(String operation, String reason) {
+        Counter.builder("google.http.client.rejected")
+            .description("Google API calls refused without being sent")
+            .tag("operation", operation)
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /**
+     * Count-based breaker. Permits carry the epoch they were issued in, which every state change
+     * bumps, so a call that started before a change doesn't count towards the new state.
+     */
+    private final class CircuitBreaker {
+
+        private final boolean[] outcomes = new boolean[windowSize]; // true = failure
+        private int recorded;
+        private int next;
+        private int failures;
+        private State state = State.CLOSED;
+        private long epoch;
+        private long openedAt;
+        private int trialsInFlight;
+        private int trialSuccesses;
+
+        synchronized State state() {
+            return state;
+        }
+
+        // Epoch for record(), or -1 if the call must not be made
+        synchronized long tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now - openedAt < openMillis) {
+                    return -1;
+                }
+                transition(State.HALF_OPEN, now);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsInFlight >= halfOpenCalls) {
+                    return -1;
+                }
+                trialsInFlight++;
+            }
+            return epoch;
+        }
+
+        // A permit that was not used
+        synchronized void release(long permit) {
+            if (permit == epoch && state == State.HALF_OPEN) {
+                trialsInFlight--;
+            }
+        }
+
+        synchronized void record(long permit, boolean success, long now) {
+            if (permit != epoch) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                trialsInFlight--;
+                if (!success) {
+                    transition(State.OPEN, now);
+                } else if (++trialSuccesses >= halfOpenCalls) {
+                    transition(State.CLOSED, now);
+                }
+                return;
+            }
+            if (recorded == outcomes.length) {
+                if (outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            outcomes[next] = !success;
+            if (!success) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+            if (recorded >= minimumCalls && failures * 100 >= failureRatePercent * recorded) {
+                transition(State.OPEN, now);
+            }
+        }
+
+        synchronized long retryAfterMillis(long now) {
+            return state == State.OPEN ? Math.max(1000, openMillis - (now - openedAt)) : 1000;
+        }
+
+        private void transition(State newState, long now) {
+            state = newState;
+            epoch++;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+            if (newState == State.OPEN) {
+                openedAt = now;
+                System.err.println("Google API circuit opened for " + openMillis / 1000 + "s after "
+                    + failures + " of " + recorded + " calls failed");
+            }
+            if (newState != State.HALF_OPEN) {
+                recorded = 0;
+                next = 0;
+                failures = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.TokenRefreshLease;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.TokenRefreshLeaseRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import com.justinli.taskscheduler.security.UserContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Renews Google access tokens before they expire, so user requests never wait on the token endpoint.
+ *
+ * Each user is refreshed {@code refresh-ahead-seconds} before expiry plus a per-user offset of up to
+ * {@code jitter-seconds}, which spreads tokens issued at the same time over the scan schedule.
+ * At most one refresh per user is in flight, and a failed refresh is retried after a backoff.
+ *
+ * Every node scans, so a refresh first takes the user's {@link TokenRefreshLease} in the database and
+ * re-reads the token expiry: the node that gets the lease refreshes, and a node that gets it after
+ * another has refreshed sees the new expiry and skips. A failure holds the lease for the backoff, so no
+ * node retries before then.
+ */
+@Component
+public class GoogleTokenRefresher {
+
+    private final UserRepository userRepository;
+    private final TokenRefreshLeaseRepository leaseRepository;
+    private final GoogleCalendarService googleCalendarService;
+    private final TransactionTemplate requiresNew;
+    private final long refreshAheadSeconds;
+    private final long jitterSeconds;
+    private final long failureBackoffSeconds;
+    private final long leaseSeconds;
+    private final ExecutorService refreshExecutor;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, LocalDateTime> retryNotBefore = new ConcurrentHashMap<>();
+
+    public GoogleTokenRefresher(
+        UserRepository userRepository,
+        TokenRefreshLeaseRepository leaseRepository,
+        GoogleCalendarService googleCalendarService,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.oauth.refresh.ahead-seconds:600}") long refreshAheadSeconds,
+        @Value("${app.oauth.refresh.jitter-seconds:300}") long jitterSeconds,
+        @Value("${app.oauth.refresh.failure-backoff-seconds:300}") long failureBackoffSeconds,
+        @Value("${app.oauth.refresh.lease-seconds:60}") long leaseSeconds,
+        @Value("${app.oauth.refresh.threads:2}") int threads
+    ) {
+        this.userRepository = userRepository;
+        this.leaseRepository = leaseRepository;
+        this.googleCalendarService = googleCalendarService;
+        // Read-write, so lease and expiry reads go to the primary rather than a replica that may lag
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refreshAheadSeconds = refreshAheadSeconds;
+        this.jitterSeconds = jitterSeconds;
+        this.failureBackoffSeconds = failureBackoffSeconds;
+        this.leaseSeconds = leaseSeconds;
+        this.refreshExecutor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Scheduled(fixedDelayString = "${app.oauth.refresh.scan-interval-ms:60000}")
+    public void refreshExpiringTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusSeconds(refreshAheadSeconds + jitterSeconds);
+
+        for (User user : userRepository.findWithGoogleTokenExpiringBefore(horizon)) {
+            String email = user.getEmail();
+            LocalDateTime notBefore = retryNotBefore.get(email);
+
+            if (!isDue(email, user.getGoogleTokenExpiry(), now) || (notBefore != null && notBefore.isAfter(now))) {
+                continue;
+            }
+            if (inFlight.add(email)) {
+                Long userId = user.getId();
+                refreshExecutor.execute(() -> refresh(userId, email));
+            }
+        }
+    }
+
+    private void refresh(Long userId, String email) {
+        try {
+            if (!tryLease(userId)) {
+                return; // another node is refreshing, or backing off after a failure
+            }
+            LocalDateTime expiry = requiresNew.execute(status -> userRepository.findGoogleTokenExpiry(userId).orElse(null));
+            if (isDue(email, expiry, LocalDateTime.now())) {
+                UserContext.runAs(email, googleCalendarService::refreshCredential);
+            }
+            releaseLease(userId, Instant.now());
+            retryNotBefore.remove(email);
+        } catch (Exception e) {
+            // Revoked or failing tokens are retried later; a request in between still refreshes on demand
+            System.err.println("Google token refresh failed for " + email + ": " + e.getMessage());
+            retryNotBefore.put(email, LocalDateTime.now().plusSeconds(failureBackoffSeconds));
+            releaseLease(userId, Instant.now().plusSeconds(failureBackoffSeconds));
+        } finally {
+            inFlight.remove(email);
+        }
+    }
+
+    private boolean isDue(String email, LocalDateTime expiry, LocalDateTime now) {
+        return expiry == null || !expiry.minusSeconds(refreshAheadSeconds + jitterFor(email)).isAfter(now);
+    }
+
+    private boolean tryLease(Long userId) {
+        Instant now = Instant.now();
+        Instant until = now.plusSeconds(leaseSeconds);
+        if (requiresNew.execute(status -> leaseRepository.takeExpired(userId, nodeId, until, now)) > 0) {
+            return true;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> leaseRepository.saveAndFlush(
+                new TokenRefreshLease(null, userRepository.getReferenceById(userId), nodeId, until)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false; // the row exists and its lease has not expired
+        }
+    }
+
+    private void releaseLease(Long userId, Instant until) {
+        try {
+            requiresNew.executeWithoutResult(status -> leaseRepository.holdUntil(userId, nodeId, until));
+        } catch (RuntimeException e) {
+            // the lease expires on its own
+            System.err.println("Failed to release token refresh lease of user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    // Stable per-user offset in [0, jitterSeconds)
+    private long jitterFor(String email) {
+        return jitterSeconds <= 0 ? 0 : Math.floorMod(email.hashCode(), jitterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
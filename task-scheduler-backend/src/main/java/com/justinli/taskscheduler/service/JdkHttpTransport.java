@@ -0,0 +1,317 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Google API transport on {@link HttpClient}. Requests to googleapis.com are multiplexed as HTTP/2
+ * streams over a few shared connections instead of one socket each; gzip is negotiated by the API
+ * client ({@code Accept-Encoding}, {@code GZipEncoding}) and passes through unchanged.
+ *
+ * Every exchange runs through {@link GoogleCallGuard}, on its pool and behind the circuit breaker of
+ * its operation type. Response bodies are read in full there, so connect + read timeout bounds the
+ * whole call and a stalled body can't hold a request thread.
+ *
+ * Meters: {@code google.http.client.requests} (timer by method, status and protocol),
+ * {@code google.http.client.streams.active} (requests in flight) and
+ * {@code google.http.client.tls.sessions} (TLS handshakes; flat while connections are reused).
+ */
+@Component
+public class JdkHttpTransport extends HttpTransport {
+
+    // Managed by HttpClient itself; setting them is rejected
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final Duration connectTimeout;
+    private final int readTimeoutMillis;
+    private final MeterRegistry meterRegistry;
+    private final GoogleCallGuard guard;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final Counter tlsSessions;
+    private final Set<SSLSession> seenSessions = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    // Built on first use, so startup doesn't load the trust store
+    private volatile HttpClient client;
+    private volatile ExecutorService executor;
+
+    public JdkHttpTransport(MeterRegistry meterRegistry,
+                            GoogleCallGuard guard,
+                            @Value("${app.google.http.connect-timeout-ms:10000}") int connectTimeoutMillis,
+                            @Value("${app.google.http.read-timeout-ms:20000}") int readTimeoutMillis) {
+        this.meterRegistry = meterRegistry;
+        this.guard = guard;
+        this.connectTimeout = Duration.ofMillis(connectTimeoutMillis);
+        this.readTimeoutMillis = readTimeoutMillis;
+        Gauge.builder("google.http.client.streams.active", activeStreams, AtomicInteger::get)
+            .description("Google API requests in flight")
+            .register(meterRegistry);
+        this.tlsSessions = Counter.builder("google.http.client.tls.sessions")
+            .description("TLS sessions established with Google APIs")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Wraps {@code delegate} (may be null) so requests use the configured read timeout instead of the
+     * API client's 20 second default. The connect timeout applies to the shared client as a whole.
+     */
+    public HttpRequestInitializer withTimeouts(HttpRequestInitializer delegate) {
+        return request -> {
+            if (delegate != null) {
+                delegate.initialize(request);
+            }
+            request.setConnectTimeout((int) connectTimeout.toMillis());
+            request.setReadTimeout(readTimeoutMillis);
+        };
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return true; // PATCH included, so no X-HTTP-Method-Override tunnelling
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new Request(method, url);
+    }
+
+    @PreDestroy
+    @Override
+    public void shutdown() {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    private HttpClient client() {
+        HttpClient current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "google-http");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    current = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2) // falls back to HTTP/1.1 without ALPN support
+                        .connectTimeout(connectTimeout)
+                        .followRedirects(HttpClient.Redirect.NEVER) // the API client handles redirects
+                        .executor(executor)
+                        .build();
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private final class Request extends LowLevelHttpRequest {
+
+        private final String method;
+        private final URI uri;
+        private final HttpRequest.Builder builder;
+        private Duration timeout;
+
+        Request(String method, String url) {
+            this.method = method;
+            this.uri = URI.create(url);
+            this.builder = HttpRequest.newBuilder(uri);
+            this.timeout = Duration.ofMillis(readTimeoutMillis);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                builder.header(name, value);
+            }
+        }
+
+        // The connect part is fixed per client; the read timeout bounds the wait for response headers
+        @Override
+        public void setTimeout(int connectTimeout, int readTimeout) {
+            timeout = readTimeout > 0 ? Duration.ofMillis(readTimeout) : null;
+        }
+
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+            if (getContentType() != null) {
+                builder.setHeader("Content-Type", getContentType());
+            }
+            if (getContentEncoding() != null) {
+                builder.setHeader("Content-Encoding", getContentEncoding());
+            }
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+            if (getStreamingContent() != null) {
+                // API bodies are small JSON documents, so buffering keeps the Content-Length exact
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                getStreamingContent().writeTo(buffer);
+                body = HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray());
+            }
+            builder.method(method, body);
+            if (timeout != null) {
+                builder.timeout(timeout);
+            }
+
+            HttpRequest request = builder.build();
+            Duration maxWait = connectTimeout.plus(timeout != null ? timeout : Duration.ofMillis(readTimeoutMillis));
+            long startNanos = System.nanoTime();
+            HttpResponse<byte[]> response;
+            activeStreams.incrementAndGet();
+            try {
+                response = guard.call(operation(), maxWait,
+                    () -> client().send(request, HttpResponse.BodyHandlers.ofByteArray()),
+                    r -> r.statusCode() < 500 && r.statusCode() != 429);
+            } catch (IOException e) {
+                record(startNanos, "IO_ERROR", "none");
+                throw e;
+            } finally {
+                activeStreams.decrementAndGet();
+            }
+            response.sslSession().ifPresent(session -> {
+                if (seenSessions.add(session)) {
+                    tlsSessions.increment();
+                }
+            });
+            record(startNanos, String.valueOf(response.statusCode()), response.version().name());
+            return new Response(response);
+        }
+
+        // Circuit breaker key: calls of one type tend to fail together
+        private String operation() {
+            String path = uri.getPath();
+            if (!uri.getHost().endsWith("googleapis.com") || uri.getHost().startsWith("oauth2.")) {
+                return "oauth";
+            }
+            if (path.endsWith("/freeBusy")) {
+                return "freebusy";
+            }
+            if (path.contains("/calendarList")) {
+                return "calendar-list";
+            }
+            if (path.endsWith("/events/watch") || path.endsWith("/channels/stop")) {
+                return "watch";
+            }
+            if (path.contains("/events")) {
+                return "GET".equals(method) ? "events-read" : "events-write";
+            }
+            return "other";
+        }
+
+        private void record(long startNanos, String status, String protocol) {
+            Timer.builder("google.http.client.requests")
+                .description("Google API requests, including the response body")
+                .tag("method", method)
+                .tag("status", status)
+                .tag("protocol", protocol)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final class Response extends LowLevelHttpResponse {
+
+        private final HttpResponse<byte[]> response;
+        private final InputStream body;
+        private final List<String> headerNames = new ArrayList<>();
+        private final List<String> headerValues = new ArrayList<>();
+
+        Response(HttpResponse<byte[]> response) {
+            this.response = response;
+            this.body = new ByteArrayInputStream(response.body());
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                for (String value : header.getValue()) {
+                    headerNames.add(header.getKey());
+                    headerValues.add(value);
+                }
+            }
+        }
+
+        @Override
+        public InputStream getContent() {
+            return body;
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return response.headers().firstValue("Content-Encoding").orElse(null);
+        }
+
+        @Override
+        public long getContentLength() {
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+
+        @Override
+        public String getContentType() {
+            return response.headers().firstValue("Content-Type").orElse(null);
+        }
+
+        @Override
+        public String getStatusLine() {
+            return (response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2 " : "HTTP/1.1 ") + response.statusCode();
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            return null; // HTTP/2 has none, and HttpClient does not expose the HTTP/1.1 one
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return headerNames.size();
+        }
+
+        @Override
+        public String getHeaderName(int index) {
+            return headerNames.get(index);
+        }
+
+        @Override
+        public String getHeaderValue(int index) {
+            return headerValues.get(index);
+        }
+
+        // The body was read in full, so the stream has already ended
+        @Override
+        public void disconnect() {
+        }
+    }
+}
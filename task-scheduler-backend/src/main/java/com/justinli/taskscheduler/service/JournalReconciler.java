@@ -0,0 +1,115 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.justinli.taskscheduler.journal.JournalRecord;
+import com.justinli.taskscheduler.journal.SchedulingJournal;
+import com.justinli.taskscheduler.model.CalendarOutboxEntry;
+import com.justinli.taskscheduler.repository.CalendarOutboxRepository;
+import com.justinli.taskscheduler.security.UserContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Settles the calendar writes the {@link SchedulingJournal} still had open when the previous process
+ * stopped. A write whose outbox row still exists takes that row's outcome, and a pending one is left
+ * to the dispatcher. Without the row (e.g. the in-memory database was lost) Google is asked whether
+ * the write took effect. Writes that cannot be checked stay open for the next start.
+ */
+@Component
+public class JournalReconciler {
+
+    private final SchedulingJournal journal;
+    private final CalendarOutboxRepository outboxRepository;
+    private final GoogleCalendarService googleCalendarService;
+
+    public JournalReconciler(SchedulingJournal journal,
+                             CalendarOutboxRepository outboxRepository,
+                             GoogleCalendarService googleCalendarService) {
+        this.journal = journal;
+        this.outboxRepository = outboxRepository;
+        this.googleCalendarService = googleCalendarService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        int applied = 0;
+        int failed = 0;
+        int pending = 0;
+        int unchecked = 0;
+        for (JournalRecord planned : journal.openAtStartup()) {
+            JournalRecord outcome;
+            try {
+                outcome = outcomeOf(planned);
+            } catch (Exception e) {
+                System.err.println("Could not reconcile journaled write " + planned.key() + ": " + e.getMessage());
+                unchecked++;
+                continue;
+            }
+            if (outcome == null) {
+                pending++;
+                continue;
+            }
+            journal.append(outcome);
+            if (outcome.type() == JournalRecord.Type.FAILED) {
+                System.err.println("Journaled write " + planned.key() + " for " + planned.userEmail()
+                    + " did not take effect: " + outcome.detail());
+                failed++;
+            } else {
+                applied++;
+            }
+        }
+        if (!journal.openAtStartup().isEmpty()) {
+            System.out.println("Reconciled scheduling journal: " + applied + " applied, " + failed + " failed, "
+                + pending + " still queued, " + unchecked + " left open");
+        }
+    }
+
+    // The record settling the write, or null while the outbox still has it queued
+    private JournalRecord outcomeOf(JournalRecord planned) throws Exception {
+        Optional<CalendarOutboxEntry> entry = outboxRepository.findByIdempotencyKey(planned.key());
+        if (entry.isPresent()) {
+            return switch (entry.get().getStatus()) {
+                case PENDING -> null;
+                case DONE -> planned.withType(JournalRecord.Type.APPLIED, "outbox");
+                case FAILED -> planned.withType(JournalRecord.Type.FAILED, entry.get().getLastError());
+                case CANCELLED -> planned.withType(JournalRecord.Type.CANCELLED, null);
+            };
+        }
+
+        AtomicReference<Event> found = new AtomicReference<>();
+        UserContext.runAs(planned.userEmail(), () -> googleCalendarService
+            .getEvent(planned.calendarId(), planned.googleEventId())
+            .ifPresent(found::set));
+        Event event = found.get();
+        boolean exists = event != null && !"cancelled".equals(event.getStatus());
+        return switch (CalendarOutboxEntry.Operation.valueOf(planned.operation())) {
+            case INSERT_EVENT -> exists
+                ? planned.withType(JournalRecord.Type.APPLIED, event.getEtag())
+                : planned.withType(JournalRecord.Type.FAILED, "event was never created in Google Calendar");
+            case PATCH_EVENT -> exists && hasTimes(event, planned)
+                ? planned.withType(JournalRecord.Type.APPLIED, event.getEtag())
+                : planned.withType(JournalRecord.Type.FAILED, "Google Calendar does not have the planned times");
+            case DELETE_EVENT -> !exists
+                ? planned.withType(JournalRecord.Type.APPLIED, null)
+                : planned.withType(JournalRecord.Type.FAILED, "event still exists in Google Calendar");
+        };
+    }
+
+    private static boolean hasTimes(Event event, JournalRecord planned) {
+        ZoneId zone = planned.timeZone() != null ? ZoneId.of(planned.timeZone()) : ZoneId.systemDefault();
+        return sameInstant(event.getStart(), planned.startTime(), zone)
+            && sameInstant(event.getEnd(), planned.endTime(), zone);
+    }
+
+    private static boolean sameInstant(EventDateTime time, LocalDateTime planned, ZoneId zone) {
+        return time != null && time.getDateTime() != null && planned != null
+            && time.getDateTime().getValue() == planned.atZone(zone).toInstant().toEpochMilli();
+    }
+}
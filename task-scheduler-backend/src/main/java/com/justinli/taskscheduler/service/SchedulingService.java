@@ -0,0 +1,584 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.exception.SchedulingConflictException;
+import com.justinli.taskscheduler.journal.JournalRecord;
+import com.justinli.taskscheduler.journal.SchedulingJournal;
+import com.justinli.taskscheduler.model.CalendarEvent;
+import com.justinli.taskscheduler.model.CalendarOutboxEntry;
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.CalendarOutboxRepository;
+import com.justinli.taskscheduler.repository.TaskRepository;
+import com.justinli.taskscheduler.scheduling.AvailabilityIndex;
+import com.justinli.taskscheduler.scheduling.AvailabilityTemplate;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import com.justinli.taskscheduler.scheduling.PlanCandidate;
+import com.justinli.taskscheduler.scheduling.PlanProposal;
+import com.justinli.taskscheduler.scheduling.PlanProposer;
+import com.justinli.taskscheduler.scheduling.PlannedSession;
+import com.justinli.taskscheduler.scheduling.SessionPlanner;
+import com.justinli.taskscheduler.scheduling.SlotAllocator;
+import com.justinli.taskscheduler.scheduling.TimeSlot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Plans task sessions against the user's calendars and records them locally.
+ *
+ * The Task, its CalendarEvent rows and one outbox entry per Google write are committed in a single
+ * transaction; {@link CalendarOutboxDispatcher} performs the writes afterwards. Event IDs are assigned
+ * up front so the local rows know their Google IDs and retried inserts cannot create duplicates.
+ * Planned sessions are reserved in {@link SlotReservations} and leased in {@link SlotLeases} before
+ * the transaction, so concurrent requests for the same user cannot pick the same time, whether they
+ * run on this node or another.
+ */
+@Service
+public class SchedulingService {
+
+    private static final int DEFAULT_LOOKAHEAD_DAYS = 14;
+    private static final int MAX_RESERVATION_ATTEMPTS = 5;
+
+    private final GoogleCalendarService googleCalendarService;
+    private final TaskRepository taskRepository;
+    private final CalendarOutboxRepository outboxRepository;
+    private final CalendarOutboxDispatcher outboxDispatcher;
+    private final UserService userService;
+    private final AvailabilityService availabilityService;
+    private final SlotReservations slotReservations;
+    private final SlotLeases slotLeases;
+    private final AnalyticsService analyticsService;
+    private final TaskSearchIndex taskSearchIndex;
+    private final SchedulingJournal journal;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool proposalPool;
+
+    public SchedulingService(GoogleCalendarService googleCalendarService,
+                             TaskRepository taskRepository,
+                             CalendarOutboxRepository outboxRepository,
+                             CalendarOutboxDispatcher outboxDispatcher,
+                             UserService userService,
+                             AvailabilityService availabilityService,
+                             SlotReservations slotReservations,
+                             SlotLeases slotLeases,
+                             AnalyticsService analyticsService,
+                             TaskSearchIndex taskSearchIndex,
+                             SchedulingJournal journal,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.scheduling.proposal-parallelism:0}") int proposalParallelism) {
+        this.googleCalendarService = googleCalendarService;
+        this.taskRepository = taskRepository;
+        this.outboxRepository = outboxRepository;
+        this.outboxDispatcher = outboxDispatcher;
+        this.userService = userService;
+        this.availabilityService = availabilityService;
+        this.slotReservations = slotReservations;
+        this.slotLeases = slotLeases;
+        this.analyticsService = analyticsService;
+        this.taskSearchIndex = taskSearchIndex;
+        this.journal = journal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.proposalPool = new ForkJoinPool(proposalParallelism > 0
+            ? proposalParallelism
+            : Runtime.getRuntime().availableProcessors());
+    }
+
+    public Task scheduleTask(
+            Long taskId,
+            String calendarId,
+            String taskSummary,
+            String taskDescription,
+            double totalHours,
+            double maxSessionHours,
+            ZonedDateTime searchStart,
+            ZonedDateTime searchEnd,
+            AvailabilityTemplate availability,
+            List<String> conflictCalendarIds,
+            int breakTimeMinutes,
+            PlanCandidate plan,
+            SlotAllocator allocator
+    ) throws IOException, GeneralSecurityException {
+
+        if (totalHours <= 0 || maxSessionHours <= 0) {
+            throw new IllegalArgumentException("totalHours and maxSessionHours must be positive.");
+        }
+
+        User user = userService.getCurrentUserOrDefault();
+        int totalMinutes = (int) (totalHours * 60);
+        int maxSessionMinutes = (int) (maxSessionHours * 60);
+
+        AvailabilityIndex index = buildIndex(user, calendarId, searchStart, searchEnd, availability,
+            conflictCalendarIds, breakTimeMinutes);
+
+        Reservation reservation = planAndReserve(user, index, searchStart, searchEnd, free -> {
+            if (plan == null) {
+                return SessionPlanner.plan(
+                    free.freeSlots(allocator.minSlotMinutes(totalMinutes, maxSessionMinutes)),
+                    taskSummary, taskDescription, totalMinutes, maxSessionMinutes, breakTimeMinutes, 1, allocator
+                );
+            }
+            // A proposal chosen earlier (proposals are first-fit) is re-planned against current availability before it is written
+            int sessionMinutes = Math.min(plan.sessionMinutes(), maxSessionMinutes);
+            return SessionPlanner.tryPlan(
+                free.freeSlots(SessionPlanner.minSlotMinutes(totalMinutes, sessionMinutes)),
+                taskSummary, taskDescription, totalMinutes, sessionMinutes, breakTimeMinutes, plan.onePerDay()
+            ).orElseThrow(() -> new IllegalStateException(
+                "Plan " + plan.id() + " no longer fits; request new proposals."));
+        });
+
+        Task task;
+        try {
+            task = transactionTemplate.execute(status -> persistPlan(
+                user, taskId, calendarId, taskSummary, taskDescription, totalHours, maxSessionHours,
+                conflictCalendarIds, breakTimeMinutes, reservation.sessions()
+            ));
+        } catch (RuntimeException e) {
+            release(reservation);
+            throw e;
+        }
+
+        outboxDispatcher.wakeUp();
+        return task;
+    }
+
+    /**
+     * Dry run of {@link #scheduleTask}: plans several alternatives against the same availability and
+     * returns them ranked by {@code objective}. Reads calendars but creates no events; the chosen
+     * proposal is committed by passing its {@link PlanProposal#plan()} back to {@code scheduleTask}.
+     */
+    public List<PlanProposal> proposePlans(
+            String calendarId,
+            String taskSummary,
+            String taskDescription,
+            double totalHours,
+            double maxSessionHours,
+            ZonedDateTime searchStart,
+            ZonedDateTime searchEnd,
+            AvailabilityTemplate availability,
+            List<String> conflictCalendarIds,
+            int breakTimeMinutes,
+            PlanProposer.Objective objective,
+            int maxProposals
+    ) throws IOException, GeneralSecurityException {
+
+        if (totalHours <= 0 || maxSessionHours <= 0) {
+            throw new IllegalArgumentException("totalHours and maxSessionHours must be positive.");
+        }
+
+        User user = userService.getCurrentUserOrDefault();
+        int totalMinutes = (int) (totalHours * 60);
+        int maxSessionMinutes = (int) (maxSessionHours * 60);
+
+        AvailabilityIndex index = buildIndex(user, calendarId, searchStart, searchEnd, availability,
+            conflictCalendarIds, breakTimeMinutes);
+        // Shortest candidate session decides which slots are worth listing
+        int shortestSession = PlanProposer.candidates(totalMinutes, maxSessionMinutes).stream()
+            .mapToInt(PlanCandidate::sessionMinutes).min().orElse(maxSessionMinutes);
+        List<TimeSlot> freeSlots = index.freeSlots(SessionPlanner.minSlotMinutes(totalMinutes, shortestSession));
+
+        return PlanProposer.propose(proposalPool, freeSlots, taskSummary, taskDescription, totalMinutes,
+            maxSessionMinutes, breakTimeMinutes, searchEnd, objective, maxProposals);
+    }
+
+    // Checks the given calendars for conflicts; sessions are scheduled in the target calendar
+    private AvailabilityIndex buildIndex(User user, String calendarId, ZonedDateTime searchStart, ZonedDateTime searchEnd,
+                                         AvailabilityTemplate availability, List<String> conflictCalendarIds,
+                                         int breakTimeMinutes) throws IOException, GeneralSecurityException {
+        AvailabilityIndex index = googleCalendarService.buildAvailabilityIndex(
+            calendarId, searchStart, searchEnd, availability, conflictCalendarIds, breakTimeMinutes
+        );
+        // Sessions that are committed locally but not yet written to Google are busy too
+        for (CalendarOutboxEntry pending : outboxRepository.findByUserAndStatusAndOperation(
+                user, CalendarOutboxEntry.Status.PENDING, CalendarOutboxEntry.Operation.INSERT_EVENT)) {
+            index.addBusy(toBusyInterval(pending));
+        }
+        // So are sessions another request, here or on another node, has picked but not committed yet
+        addHeld(user, index, searchStart, searchEnd);
+        return index;
+    }
+
+    private void addHeld(User user, AvailabilityIndex index, ZonedDateTime searchStart, ZonedDateTime searchEnd) {
+        slotReservations.held(user.getEmail()).forEach(index::addBusy);
+        slotLeases.active(user, searchStart.toInstant(), searchEnd.toInstant()).forEach(index::addBusy);
+    }
+
+    /**
+     * Plans with {@code planner} and reserves the result for the user, first on this node and then
+     * in the lease table. If a concurrent request held overlapping time first, that time is marked
+     * busy and the plan is made again.
+     */
+    private Reservation planAndReserve(User user, AvailabilityIndex index, ZonedDateTime searchStart,
+                                       ZonedDateTime searchEnd,
+                                       Function<AvailabilityIndex, List<PlannedSession>> planner) {
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > 1) {
+                addHeld(user, index, searchStart, searchEnd);
+            }
+            List<PlannedSession> sessions = planner.apply(index);
+            List<BusyInterval> intervals = sessions.stream().map(PlannedSession::toBusyInterval).toList();
+            Optional<SlotReservations.Reservation> claim = slotReservations.tryReserve(user.getEmail(), intervals);
+            if (claim.isPresent()) {
+                Optional<String> lease = slotLeases.tryLease(user, intervals);
+                if (lease.isPresent()) {
+                    return new Reservation(sessions, claim.get(), lease.get());
+                }
+                slotReservations.release(claim.get());
+            }
+            if (attempt == MAX_RESERVATION_ATTEMPTS) {
+                throw new SchedulingConflictException("Too many concurrent scheduling requests for this user; please retry.");
+            }
+        }
+    }
+
+    private void release(Reservation reservation) {
+        slotReservations.release(reservation.claim());
+        slotLeases.release(reservation.leaseId());
+    }
+
+    public void release(Extension extension) {
+        release(extension.reservation());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        proposalPool.shutdownNow();
+    }
+
+    private Task persistPlan(User user, Long taskId, String calendarId, String taskSummary, String taskDescription,
+                             double totalHours, double maxSessionHours, List<String> conflictCalendarIds,
+                             int breakTimeMinutes, List<PlannedSession> sessions) {
+        Task task;
+        if (taskId != null) {
+            task = taskRepository.findById(taskId)
+                .filter(t -> t.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Task not found or unauthorized"));
+            if (!task.getCalendarEvents().isEmpty()) {
+                throw new IllegalStateException("Task already has scheduled sessions.");
+            }
+        } else {
+            task = new Task();
+            task.setName(taskSummary);
+            task.setDescription(taskDescription);
+            task.setDuration(totalHours);
+            task.setMaxSessionHours(maxSessionHours);
+            task.setPriority(Task.TaskPriority.MEDIUM);
+            task.setUser(user);
+        }
+        task.setCalendarId(calendarId);
+        // Sessions added later (see planExtension) respect the same conflicts and breaks
+        task.setConflictCalendarIds(conflictCalendarIds == null || conflictCalendarIds.isEmpty()
+            ? null : String.join(",", conflictCalendarIds));
+        task.setBreakTimeMinutes(breakTimeMinutes);
+        analyticsService.setStatus(task, Task.TaskStatus.SCHEDULED);
+        task.setScheduledAt(LocalDateTime.now());
+
+        List<CalendarOutboxEntry> outboxEntries = new ArrayList<>();
+        for (PlannedSession session : sessions) {
+            CalendarEvent calendarEvent = toCalendarEvent(session, calendarId, task);
+            task.getCalendarEvents().add(calendarEvent);
+            analyticsService.sessionAdded(calendarEvent);
+            outboxEntries.add(newOutboxEntry(CalendarOutboxEntry.Operation.INSERT_EVENT, calendarEvent, session, user));
+        }
+
+        Task saved = taskRepository.save(task);
+        if (taskId == null) {
+            taskSearchIndex.taskSaved(saved);
+        }
+        outboxRepository.saveAll(outboxEntries);
+        journalPlanned(outboxEntries);
+        return saved;
+    }
+
+    /**
+     * Plans the sessions a scheduled task will lack once {@code changes} are applied, before the
+     * transaction that applies them, since it reads the task's calendars: like {@link #scheduleTask},
+     * against its target and conflict calendars and break time. The sessions are reserved until the
+     * transaction passes the result to {@link #rescheduleForDuration}; {@link #release} frees them if
+     * it fails. Empty if no time would be missing.
+     */
+    public Optional<Extension> planExtension(Long taskId, Task changes) throws IOException, GeneralSecurityException {
+        User user = userService.getCurrentUserOrDefault();
+        ExtensionRequest request = transactionTemplate.execute(status -> taskRepository.findById(taskId)
+            .filter(task -> task.getUser().getId().equals(user.getId()))
+            .map(task -> extensionRequest(task, changes))
+            .orElse(null));
+        if (request == null) {
+            return Optional.empty();
+        }
+
+        AvailabilityTemplate availability = availabilityService.getTemplateForCurrentUser()
+            .orElseGet(() -> AvailabilityTemplate.fromWorkHours(request.workHoursStart(), request.workHoursEnd()));
+        AvailabilityIndex index = buildIndex(user, request.calendarId(), request.searchStart(), request.searchEnd(),
+            availability, request.conflictCalendarIds(), request.breakTimeMinutes());
+        Reservation reservation = planAndReserve(user, index, request.searchStart(), request.searchEnd(),
+            free -> SessionPlanner.plan(
+                free.freeSlots(SessionPlanner.minSlotMinutes(request.missingMinutes(), request.maxSessionMinutes())),
+                request.name(), request.description(), request.missingMinutes(), request.maxSessionMinutes(),
+                request.breakTimeMinutes(), request.firstSessionNumber()
+            ));
+        return Optional.of(new Extension(request.missingMinutes(), reservation));
+    }
+
+    // What planExtension needs from the task with the changes applied, or null if nothing is missing
+    private ExtensionRequest extensionRequest(Task task, Task changes) {
+        Double duration = changes.getDuration() != null ? changes.getDuration() : task.getDuration();
+        if (duration == null || task.getCalendarEvents().isEmpty()) {
+            return null;
+        }
+        int targetMinutes = (int) Math.round(duration * 60);
+        List<CalendarEvent> sessions = sortedSessions(task);
+        int scheduledMinutes = 0;
+        for (CalendarEvent session : sessions) {
+            scheduledMinutes += (int) Duration.between(session.getStartTime(), session.getEndTime()).toMinutes();
+        }
+        if (scheduledMinutes >= targetMinutes) {
+            return null;
+        }
+
+        CalendarEvent last = sessions.get(sessions.size() - 1);
+        ZoneId zone = zoneOf(last);
+        ZonedDateTime searchStart = ZonedDateTime.now(zone);
+        ZonedDateTime lastEnd = last.getEndTime().atZone(zone);
+        if (lastEnd.isAfter(searchStart)) {
+            searchStart = lastEnd;
+        }
+        ZonedDateTime searchEnd = task.getDueDate() != null && task.getDueDate().atZone(zone).isAfter(searchStart)
+            ? task.getDueDate().atZone(zone)
+            : searchStart.plusDays(DEFAULT_LOOKAHEAD_DAYS);
+        Double maxSessionHours = changes.getMaxSessionHours() != null ? changes.getMaxSessionHours() : task.getMaxSessionHours();
+        Integer workHoursStart = changes.getWorkHoursStart() != null ? changes.getWorkHoursStart() : task.getWorkHoursStart();
+        Integer workHoursEnd = changes.getWorkHoursEnd() != null ? changes.getWorkHoursEnd() : task.getWorkHoursEnd();
+
+        return new ExtensionRequest(
+            task.getName(), task.getDescription(),
+            changes.getCalendarId() != null ? changes.getCalendarId() : task.getCalendarId(),
+            conflictCalendarIdsOf(task),
+            task.getBreakTimeMinutes() != null ? task.getBreakTimeMinutes() : 0,
+            workHoursStart != null ? workHoursStart : 9,
+            workHoursEnd != null ? workHoursEnd : 17,
+            targetMinutes - scheduledMinutes,
+            (int) ((maxSessionHours != null ? maxSessionHours : 4.0) * 60),
+            last.getSessionNumber() + 1,
+            searchStart, searchEnd
+        );
+    }
+
+    /**
+     * Brings a scheduled task's sessions in line with its current duration, touching as few events as
+     * possible: sessions that still fit stay where they are, the session that crosses the new total is
+     * shortened, surplus sessions are deleted and any missing time is filled with {@code extension},
+     * planned beforehand by {@link #planExtension}. Must be called inside the caller's transaction.
+     *
+     * @throws SchedulingConflictException if the sessions changed since the extension was planned
+     */
+    public void rescheduleForDuration(Task task, Optional<Extension> extension) {
+        if (task.getDuration() == null || task.getCalendarEvents().isEmpty()) {
+            extension.ifPresent(this::release);
+            return;
+        }
+        User user = task.getUser();
+        int targetMinutes = (int) Math.round(task.getDuration() * 60);
+
+        List<CalendarOutboxEntry> outboxEntries = new ArrayList<>();
+        int keptMinutes = 0;
+        for (CalendarEvent session : sortedSessions(task)) {
+            long minutes = Duration.between(session.getStartTime(), session.getEndTime()).toMinutes();
+            if (keptMinutes >= targetMinutes) {
+                analyticsService.sessionRemoved(session);
+                task.getCalendarEvents().remove(session);
+                outboxEntries.add(deleteEntry(session, user));
+            } else if (keptMinutes + minutes > targetMinutes) {
+                analyticsService.sessionRemoved(session);
+                session.setEndTime(session.getStartTime().plusMinutes(targetMinutes - keptMinutes));
+                session.calculateDuration();
+                analyticsService.sessionAdded(session);
+                keptMinutes = targetMinutes;
+                outboxEntries.add(patchEntry(session, user));
+            } else {
+                keptMinutes += minutes;
+            }
+        }
+
+        int missingMinutes = targetMinutes - keptMinutes;
+        if (missingMinutes > 0) {
+            if (extension.isEmpty() || extension.get().missingMinutes() != missingMinutes) {
+                throw new SchedulingConflictException("The task's sessions changed while new ones were planned; please retry.");
+            }
+            for (PlannedSession session : extension.get().reservation().sessions()) {
+                CalendarEvent calendarEvent = toCalendarEvent(session, task.getCalendarId(), task);
+                task.getCalendarEvents().add(calendarEvent);
+                analyticsService.sessionAdded(calendarEvent);
+                outboxEntries.add(newOutboxEntry(CalendarOutboxEntry.Operation.INSERT_EVENT, calendarEvent, session, user));
+            }
+        } else {
+            extension.ifPresent(this::release);
+        }
+
+        outboxRepository.saveAll(outboxEntries);
+        journalPlanned(outboxEntries);
+        if (!outboxEntries.isEmpty()) {
+            wakeUpDispatcherAfterCommit();
+        }
+    }
+
+    /**
+     * Takes a task's sessions out of Google Calendar before the task is deleted: writes still queued
+     * for them are cancelled and every session gets a DELETE. Must be called inside the caller's
+     * transaction.
+     */
+    public void unscheduleForDeletion(Task task) {
+        User user = task.getUser();
+        List<CalendarOutboxEntry> outboxEntries = new ArrayList<>();
+        for (CalendarEvent session : task.getCalendarEvents()) {
+            if (session.getGoogleEventId() == null) {
+                continue;
+            }
+            for (CalendarOutboxEntry pending : outboxRepository.findByGoogleEventIdAndStatus(
+                    session.getGoogleEventId(), CalendarOutboxEntry.Status.PENDING)) {
+                if (isBeingSent(pending)) {
+                    continue; // the DELETE below waits for it
+                }
+                pending.setStatus(CalendarOutboxEntry.Status.CANCELLED);
+                journal.appendAtCommit(JournalRecord.of(JournalRecord.Type.CANCELLED, pending, null));
+            }
+            // Deleting an event whose insert was cancelled above is answered with 404, which counts as done
+            outboxEntries.add(deleteEntry(session, user));
+        }
+        outboxRepository.saveAll(outboxEntries);
+        journalPlanned(outboxEntries);
+        if (!outboxEntries.isEmpty()) {
+            wakeUpDispatcherAfterCommit();
+        }
+    }
+
+    // Claimed by a dispatcher; a claim taken after this read fails our commit on the entry's version
+    private static boolean isBeingSent(CalendarOutboxEntry entry) {
+        return entry.getClaimedUntil() != null && entry.getClaimedUntil().isAfter(LocalDateTime.now());
+    }
+
+    private void wakeUpDispatcherAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+
+    // Also when the session's insert is still queued: the dispatcher may be sending it right now, so
+    // the write goes behind it and takes over the ETag the insert comes back with. Conditional on the
+    // version the plan was made against, so a later edit in Google is not overwritten.
+    private static CalendarOutboxEntry deleteEntry(CalendarEvent session, User user) {
+        CalendarOutboxEntry entry = newOutboxEntry(CalendarOutboxEntry.Operation.DELETE_EVENT, session, null, user);
+        entry.setIfMatchEtag(session.getEtag());
+        return entry;
+    }
+
+    private static CalendarOutboxEntry patchEntry(CalendarEvent session, User user) {
+        CalendarOutboxEntry entry = newOutboxEntry(CalendarOutboxEntry.Operation.PATCH_EVENT, session, null, user);
+        entry.setIfMatchEtag(session.getEtag());
+        return entry;
+    }
+
+    // Journaled as the transaction commits, before the dispatcher can send any of them
+    private void journalPlanned(List<CalendarOutboxEntry> outboxEntries) {
+        for (CalendarOutboxEntry entry : outboxEntries) {
+            journal.appendAtCommit(JournalRecord.of(JournalRecord.Type.PLANNED, entry, null));
+        }
+    }
+
+    private static CalendarEvent toCalendarEvent(PlannedSession session, String calendarId, Task task) {
+        CalendarEvent calendarEvent = new CalendarEvent();
+        calendarEvent.setGoogleEventId(newEventId());
+        calendarEvent.setCalendarId(calendarId);
+        calendarEvent.setSessionNumber(session.sessionNumber());
+        calendarEvent.setStartTime(session.start().toLocalDateTime());
+        calendarEvent.setEndTime(session.end().toLocalDateTime());
+        calendarEvent.setTimeZone(session.start().getZone().getId());
+        calendarEvent.calculateDuration();
+        calendarEvent.setTask(task);
+        return calendarEvent;
+    }
+
+    // Summary and description are only sent for inserts; patches carry just the new times
+    private static CalendarOutboxEntry newOutboxEntry(CalendarOutboxEntry.Operation operation, CalendarEvent calendarEvent,
+                                                      PlannedSession session, User user) {
+        CalendarOutboxEntry entry = new CalendarOutboxEntry();
+        entry.setIdempotencyKey(operation == CalendarOutboxEntry.Operation.INSERT_EVENT
+            ? operation + ":" + calendarEvent.getGoogleEventId()
+            : operation + ":" + calendarEvent.getGoogleEventId() + ":" + UUID.randomUUID());
+        entry.setOperation(operation);
+        entry.setCalendarId(calendarEvent.getCalendarId());
+        entry.setGoogleEventId(calendarEvent.getGoogleEventId());
+        if (session != null) {
+            entry.setSummary(session.summary());
+            entry.setDescription(session.description());
+        }
+        entry.setStartTime(calendarEvent.getStartTime());
+        entry.setEndTime(calendarEvent.getEndTime());
+        entry.setTimeZone(zoneOf(calendarEvent).getId());
+        entry.setUser(user);
+        return entry;
+    }
+
+    private static ZoneId zoneOf(CalendarEvent calendarEvent) {
+        return calendarEvent.getTimeZone() != null ? ZoneId.of(calendarEvent.getTimeZone()) : ZoneId.systemDefault();
+    }
+
+    private static BusyInterval toBusyInterval(CalendarOutboxEntry entry) {
+        ZoneId zone = ZoneId.of(entry.getTimeZone());
+        return new BusyInterval(
+            entry.getStartTime().atZone(zone).toInstant(),
+            entry.getEndTime().atZone(zone).toInstant()
+        );
+    }
+
+    // Google event IDs use base32hex characters; lowercase hex is a subset of that alphabet
+    private static String newEventId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static List<CalendarEvent> sortedSessions(Task task) {
+        List<CalendarEvent> sessions = new ArrayList<>(task.getCalendarEvents());
+        sessions.sort(Comparator.comparing(CalendarEvent::getSessionNumber));
+        return sessions;
+    }
+
+    // Null when only the target calendar is checked, as in a ScheduleTaskRequest without conflict calendars
+    private static List<String> conflictCalendarIdsOf(Task task) {
+        return task.getConflictCalendarIds() == null ? null : List.of(task.getConflictCalendarIds().split(","));
+    }
+
+    private record Reservation(List<PlannedSession> sessions, SlotReservations.Reservation claim, String leaseId) {
+    }
+
+    /**
+     * Sessions reserved by {@link #planExtension} for a task that was {@code missingMinutes} short.
+     */
+    public record Extension(int missingMinutes, Reservation reservation) {
+    }
+
+    private record ExtensionRequest(String name, String description, String calendarId, List<String> conflictCalendarIds,
+                                    int breakTimeMinutes, int workHoursStart, int workHoursEnd, int missingMinutes,
+                                    int maxSessionMinutes, int firstSessionNumber, ZonedDateTime searchStart,
+                                    ZonedDateTime searchEnd) {
+    }
+}
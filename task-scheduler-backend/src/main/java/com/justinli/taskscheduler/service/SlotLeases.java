@@ -0,0 +1,139 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.SlotLease;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.SlotLeaseRepository;
+import com.justinli.taskscheduler.scheduling.AvailabilityIndex;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * The database counterpart of {@link SlotReservations}: time a request has picked for a user,
+ * visible to every node that shares the database. A lease is one {@code slot_leases} row per
+ * five-minute quantum, and the unique key on (user, quantum) decides which of two overlapping
+ * requests wins, on whichever nodes they run.
+ *
+ * Leases are taken in their own transaction so other nodes see them before the plan is committed.
+ * They are released if the plan fails and otherwise expire after a TTL, like reservations.
+ */
+@Component
+public class SlotLeases {
+
+    private static final long QUANTUM_SECONDS = AvailabilityIndex.QUANTUM_MINUTES * 60L;
+
+    private final SlotLeaseRepository slotLeaseRepository;
+    private final TransactionTemplate requiresNew;
+    private final long ttlSeconds;
+
+    public SlotLeases(SlotLeaseRepository slotLeaseRepository,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${app.scheduling.lease-ttl-seconds:120}") long ttlSeconds) {
+        this.slotLeaseRepository = slotLeaseRepository;
+        // Read-write, so lease reads go to the primary rather than a replica that may lag
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Leased time of the user between {@code from} and {@code to}, held by requests on any node.
+     */
+    public List<BusyInterval> active(User user, Instant from, Instant to) {
+        List<SlotLease> leases = requiresNew.execute(status -> slotLeaseRepository
+            .findByUserAndQuantumBetweenAndExpiresAtAfterOrderByQuantumAsc(
+                user, firstQuantum(from), lastQuantum(to), Instant.now()));
+
+        // Adjacent quanta become one interval
+        List<BusyInterval> intervals = new ArrayList<>();
+        long runStart = 0;
+        long runEnd = -1;
+        for (SlotLease lease : leases) {
+            if (lease.getQuantum() != runEnd) {
+                if (runEnd >= 0) {
+                    intervals.add(toInterval(runStart, runEnd));
+                }
+                runStart = lease.getQuantum();
+            }
+            runEnd = lease.getQuantum() + 1;
+        }
+        if (runEnd >= 0) {
+            intervals.add(toInterval(runStart, runEnd));
+        }
+        return intervals;
+    }
+
+    /**
+     * Leases all intervals or none: empty if any quantum is already leased to the user.
+     * Returns the lease ID to pass to {@link #release}.
+     */
+    public Optional<String> tryLease(User user, List<BusyInterval> intervals) {
+        TreeSet<Long> quanta = new TreeSet<>();
+        for (BusyInterval interval : intervals) {
+            for (long q = firstQuantum(interval.start()); q <= lastQuantum(interval.end()); q++) {
+                quanta.add(q);
+            }
+        }
+        if (quanta.isEmpty()) {
+            return Optional.of(UUID.randomUUID().toString());
+        }
+
+        String leaseId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(ttlSeconds);
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                // Expired rows would still trip the unique key
+                slotLeaseRepository.deleteExpired(user, quanta.first(), quanta.last(), now);
+                List<SlotLease> leases = new ArrayList<>();
+                for (long quantum : quanta) {
+                    leases.add(new SlotLease(null, user, quantum, leaseId, expiresAt));
+                }
+                slotLeaseRepository.saveAllAndFlush(leases);
+            });
+            return Optional.of(leaseId);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty(); // another request holds part of this time
+        }
+    }
+
+    public void release(String leaseId) {
+        requiresNew.executeWithoutResult(status -> slotLeaseRepository.deleteByLeaseId(leaseId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduling.lease-sweep-interval-ms:60000}")
+    public void sweep() {
+        int removed = requiresNew.execute(status -> slotLeaseRepository.deleteAllExpired(Instant.now()));
+        if (removed > 0) {
+            System.out.println("Removed " + removed + " expired slot lease row(s)");
+        }
+    }
+
+    private static long firstQuantum(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), QUANTUM_SECONDS);
+    }
+
+    // Last quantum that the half-open interval ending at this instant touches
+    private static long lastQuantum(Instant end) {
+        return -Math.floorDiv(-end.getEpochSecond(), QUANTUM_SECONDS) - 1;
+    }
+
+    private static BusyInterval toInterval(long fromQuantum, long toQuantum) {
+        return new BusyInterval(
+            Instant.ofEpochSecond(fromQuantum * QUANTUM_SECONDS),
+            Instant.ofEpochSecond(toQuantum * QUANTUM_SECONDS)
+        );
+    }
+}
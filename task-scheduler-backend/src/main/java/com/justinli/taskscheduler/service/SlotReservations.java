@@ -0,0 +1,139 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time that a scheduling request has picked for a user but that other requests may not see yet.
+ * Two requests for the same user plan from the same calendar snapshot; the one that reserves second
+ * sees the overlap and plans again around it.
+ *
+ * Each user has their own lock, so requests for different users never wait on each other. A
+ * reservation is released if its plan fails and otherwise expires after a TTL. The TTL only has
+ * to outlast requests that planned from a snapshot taken before the plan was committed, because
+ * from then on the outbox rows mark the time busy. Reservations are per process; they do not
+ * coordinate several nodes.
+ */
+@Component
+public class SlotReservations {
+
+    private final Map<String, UserReservations> byUser = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public SlotReservations(@Value("${app.scheduling.reservation-ttl-seconds:120}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Intervals currently reserved for the user, by any request.
+     */
+    public List<BusyInterval> held(String userKey) {
+        UserReservations reservations = byUser.get(userKey);
+        if (reservations == null) {
+            return List.of();
+        }
+        synchronized (reservations) {
+            reservations.prune(System.currentTimeMillis());
+            List<BusyInterval> held = new ArrayList<>();
+            reservations.entries.forEach(reservation -> held.addAll(reservation.intervals()));
+            return held;
+        }
+    }
+
+    /**
+     * Reserves all intervals or none: empty if any of them overlaps a live reservation.
+     */
+    public Optional<Reservation> tryReserve(String userKey, List<BusyInterval> intervals) {
+        while (true) {
+            UserReservations reservations = byUser.computeIfAbsent(userKey, key -> new UserReservations());
+            synchronized (reservations) {
+                if (reservations.removed) {
+                    continue; // swept between lookup and lock; use the new entry
+                }
+                long now = System.currentTimeMillis();
+                reservations.prune(now);
+                for (Reservation existing : reservations.entries) {
+                    for (BusyInterval held : existing.intervals()) {
+                        for (BusyInterval wanted : intervals) {
+                            if (held.overlaps(wanted.start(), wanted.end())) {
+                                return Optional.empty();
+                            }
+                        }
+                    }
+                }
+                Reservation reservation = new Reservation(userKey, List.copyOf(intervals), now + ttlMillis);
+                reservations.entries.add(reservation);
+                return Optional.of(reservation);
+            }
+        }
+    }
+
+    public void release(Reservation reservation) {
+        UserReservations reservations = byUser.get(reservation.userKey());
+        if (reservations == null) {
+            return;
+        }
+        synchronized (reservations) {
+            reservations.entries.remove(reservation);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduling.reservation-sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        byUser.forEach((userKey, reservations) -> {
+            synchronized (reservations) {
+                reservations.prune(now);
+                if (reservations.entries.isEmpty()) {
+                    reservations.removed = true;
+                    byUser.remove(userKey, reservations);
+                }
+            }
+        });
+    }
+
+    // Identity equality on purpose: two requests may reserve equal intervals at different times
+    public static final class Reservation {
+
+        private final String userKey;
+        private final List<BusyInterval> intervals;
+        private final long expiresAtMillis;
+
+        private Reservation(String userKey, List<BusyInterval> intervals, long expiresAtMillis) {
+            this.userKey = userKey;
+            this.intervals = intervals;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String userKey() {
+            return userKey;
+        }
+
+        public List<BusyInterval> intervals() {
+            return intervals;
+        }
+
+        public Instant expiresAt() {
+            return Instant.ofEpochMilli(expiresAtMillis);
+        }
+    }
+
+    private static final class UserReservations {
+
+        private final List<Reservation> entries = new ArrayList<>();
+        private boolean removed;
+
+        void prune(long now) {
+            entries.removeIf(reservation -> reservation.expiresAtMillis <= now);
+        }
+    }
+}
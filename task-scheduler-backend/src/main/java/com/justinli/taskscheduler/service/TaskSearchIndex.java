@@ -0,0 +1,507 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.model.TaskSearchVersion;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.TaskRepository;
+import com.justinli.taskscheduler.repository.TaskSearchVersionRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over task names and descriptions, one per user, so a search looks up
+ * a few terms instead of scanning every task. Each query word matches a term exactly, as a prefix
+ * ("sched" finds "scheduling") or within one or two typos, found through the terms' trigrams.
+ *
+ * Writes that change a task's text call {@link #taskSaved} or {@link #taskDeleted}; the index is
+ * updated once the transaction commits. Each such commit also increments the user's
+ * {@link TaskSearchVersion}, so a search reads one row to find out whether another node (or a commit
+ * this node has not applied yet) changed the tasks, and only then diffs the (id, updatedAt) pairs of
+ * the user's tasks and re-reads the changed ones. Text is read with scalar queries, bypassing the
+ * entity cache.
+ *
+ * On PostgreSQL the database searches instead, with a full-text index for words and prefixes and a
+ * pg_trgm index for typos, and nothing is kept in memory.
+ */
+@Component
+public class TaskSearchIndex {
+
+    // Scores per query word; a task's score is the sum over all words, which must all match
+    private static final int NAME_EXACT = 6;
+    private static final int NAME_PREFIX = 4;
+    private static final int NAME_FUZZY = 2;
+    private static final int DESCRIPTION_EXACT = 3;
+    private static final int DESCRIPTION_PREFIX = 2;
+    private static final int DESCRIPTION_FUZZY = 1;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    // More changed tasks than this are re-read with one query for all of the user's tasks
+    private static final int MAX_CHANGED_BY_ID = 500;
+
+    // Same expression as the searches in TaskRepositoryCustomImpl, so PostgreSQL uses these indexes
+    private static final String DOCUMENT = "(coalesce(name, '') || ' ' || coalesce(description, ''))";
+    private static final List<String> POSTGRES_DDL = List.of(
+        "create extension if not exists pg_trgm",
+        "create index if not exists idx_tasks_search_text on tasks using gin (to_tsvector('simple', " + DOCUMENT + "))",
+        "create index if not exists idx_tasks_search_trigram on tasks using gin (" + DOCUMENT + " gin_trgm_ops)"
+    );
+
+    private final TaskRepository taskRepository;
+    private final TaskSearchVersionRepository versionRepository;
+    private final UserRepository userRepository;
+    private final DataSource dataSource;
+    private final TransactionTemplate requiresNew;
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+    private volatile boolean postgres;
+
+    public TaskSearchIndex(TaskRepository taskRepository, TaskSearchVersionRepository versionRepository,
+                           UserRepository userRepository, DataSource dataSource,
+                           PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.versionRepository = versionRepository;
+        this.userRepository = userRepository;
+        this.dataSource = dataSource;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Switches to database search on PostgreSQL, creating its indexes. Stays in memory if pg_trgm
+     * cannot be installed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectDatabase() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : POSTGRES_DDL) {
+                    statement.execute(ddl);
+                }
+            }
+            postgres = true;
+        } catch (SQLException e) {
+            System.err.println("Task search stays in memory, PostgreSQL search is unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * IDs of the user's best matching tasks, best first; empty if the query has no words.
+     * Call inside a transaction.
+     */
+    public List<Long> search(User user, String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (postgres) {
+            return taskRepository.searchPostgres(user.getId(), words, limit);
+        }
+        UserIndex index = indexes.computeIfAbsent(user.getId(), id -> new UserIndex());
+        // A replica behind this node's own commits reads a lower version; the index is newer then
+        long version = versionRepository.findVersion(user.getId()).orElse(0L);
+        if (version > index.seenVersion()) {
+            refresh(user, index);
+            index.seen(version);
+        }
+        return index.search(words, limit);
+    }
+
+    /**
+     * Records that the current transaction created a task or changed its name or description.
+     * Call after the task has an ID.
+     */
+    public void taskSaved(Task task) {
+        UserChanges changes = pending().of(task.getUser().getId());
+        changes.removed.remove(task.getId());
+        changes.saved.put(task.getId(), task);
+    }
+
+    public void taskDeleted(Task task) {
+        UserChanges changes = pending().of(task.getUser().getId());
+        changes.saved.remove(task.getId());
+        changes.removed.add(task.getId());
+    }
+
+    private void refresh(User user, UserIndex index) {
+        Map<Long, LocalDateTime> versions = new HashMap<>();
+        for (Object[] row : taskRepository.findVersionsByUser(user)) {
+            versions.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        Set<Long> changed = new HashSet<>();
+        Set<Long> removed = new HashSet<>();
+        index.diff(versions, changed, removed);
+        if (changed.size() > MAX_CHANGED_BY_ID) {
+            index.update(taskRepository.findSearchFieldsByUser(user), removed);
+        } else if (!changed.isEmpty() || !removed.isEmpty()) {
+            index.update(changed.isEmpty() ? List.of() : taskRepository.findSearchFieldsByIdIn(changed), removed);
+        }
+    }
+
+    // Changes recorded in the current transaction
+    private PendingChanges pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("The task search index must be updated inside a transaction");
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // The user's version after this transaction's increment, which holds the row lock until commit
+    private long incrementVersion(Long userId) {
+        if (versionRepository.increment(userId) == 0) {
+            try {
+                requiresNew.executeWithoutResult(status -> versionRepository.saveAndFlush(
+                    new TaskSearchVersion(null, userRepository.getReferenceById(userId), 0L)));
+            } catch (DataIntegrityViolationException e) {
+                // created by a concurrent transaction; the increment below finds it
+            }
+            versionRepository.increment(userId);
+        }
+        return versionRepository.findVersion(userId).orElseThrow();
+    }
+
+    /**
+     * Lower-cased words of letters and digits, accents removed ("Résumé draft" gives "resume", "draft").
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}+", "")
+            .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Levenshtein distance, or max + 1 once it is known to exceed max
+    private static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class UserChanges {
+
+        private final Map<Long, Task> saved = new LinkedHashMap<>();
+        private final Set<Long> removed = new HashSet<>();
+        private long version;
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+
+        // By user ID, so concurrent transactions lock version rows in the same order
+        private final Map<Long, UserChanges> byUser = new TreeMap<>();
+
+        TaskSearchIndex owner() {
+            return TaskSearchIndex.this;
+        }
+
+        UserChanges of(Long userId) {
+            return byUser.computeIfAbsent(userId, id -> new UserChanges());
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            byUser.forEach((userId, changes) -> changes.version = incrementVersion(userId));
+        }
+
+        @Override
+        public void afterCommit() {
+            byUser.forEach((userId, changes) -> {
+                UserIndex index = indexes.get(userId);
+                if (index == null) {
+                    return; // built from the database on the user's first search
+                }
+                // Read now: updatedAt is set when the task is flushed, after beforeCommit
+                List<Object[]> rows = new ArrayList<>();
+                for (Task task : changes.saved.values()) {
+                    rows.add(new Object[] {task.getId(), task.getName(), task.getDescription(), task.getUpdatedAt()});
+                }
+                index.applyCommitted(rows, changes.removed, changes.version);
+            });
+        }
+    }
+
+    private static final class UserIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, List<Set<String>>> termsByTask = new HashMap<>(); // {name terms, description terms}
+        private final Map<Long, LocalDateTime> versions = new HashMap<>(); // updatedAt each task was indexed at
+        private final TreeMap<String, Set<Long>> nameTerms = new TreeMap<>();
+        private final TreeMap<String, Set<Long>> descriptionTerms = new TreeMap<>();
+        private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+        private long seenVersion = -1; // TaskSearchVersion the index is known to include
+
+        long seenVersion() {
+            lock.readLock().lock();
+            try {
+                return seenVersion;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void seen(long version) {
+            lock.writeLock().lock();
+            try {
+                seenVersion = Math.max(seenVersion, version);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // A commit of this node. If an earlier version is still missing, the next search refreshes.
+        void applyCommitted(List<Object[]> rows, Set<Long> removed, long version) {
+            lock.writeLock().lock();
+            try {
+                update(rows, removed);
+                if (seenVersion == version - 1) {
+                    seenVersion = version;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Tasks whose version differs from the indexed one, and indexed tasks that no longer exist
+        void diff(Map<Long, LocalDateTime> current, Set<Long> changed, Set<Long> removed) {
+            lock.readLock().lock();
+            try {
+                for (Map.Entry<Long, LocalDateTime> entry : current.entrySet()) {
+                    if (!versions.containsKey(entry.getKey()) || !Objects.equals(versions.get(entry.getKey()), entry.getValue())) {
+                        changed.add(entry.getKey());
+                    }
+                }
+                for (Long taskId : versions.keySet()) {
+                    if (!current.containsKey(taskId)) {
+                        removed.add(taskId);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Rows of [id, name, description, updatedAt]
+        void update(List<Object[]> rows, Set<Long> removed) {
+            lock.writeLock().lock();
+            try {
+                for (Long taskId : removed) {
+                    removeLocked(taskId);
+                }
+                for (Object[] row : rows) {
+                    Long taskId = (Long) row[0];
+                    LocalDateTime indexed = versions.get(taskId);
+                    if (indexed != null && row[3] != null && indexed.isAfter((LocalDateTime) row[3])) {
+                        continue; // a later commit is already indexed
+                    }
+                    removeLocked(taskId);
+                    Set<String> nameSet = new HashSet<>(tokenize((String) row[1]));
+                    Set<String> descriptionSet = new HashSet<>(tokenize((String) row[2]));
+                    termsByTask.put(taskId, List.of(nameSet, descriptionSet));
+                    versions.put(taskId, (LocalDateTime) row[3]);
+                    add(nameTerms, nameSet, taskId);
+                    add(descriptionTerms, descriptionSet, taskId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Long> search(List<String> words, int limit) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Integer> scores = null;
+                for (String word : words) {
+                    Map<Long, Integer> wordScores = new HashMap<>();
+                    score(wordScores, nameTerms, word, NAME_EXACT, NAME_PREFIX, NAME_FUZZY);
+                    score(wordScores, descriptionTerms, word, DESCRIPTION_EXACT, DESCRIPTION_PREFIX, DESCRIPTION_FUZZY);
+                    if (scores == null) {
+                        scores = wordScores;
+                    } else {
+                        Map<Long, Integer> combined = new HashMap<>();
+                        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                            Integer wordScore = wordScores.get(entry.getKey());
+                            if (wordScore != null) {
+                                combined.put(entry.getKey(), entry.getValue() + wordScore);
+                            }
+                        }
+                        scores = combined;
+                    }
+                    if (scores.isEmpty()) {
+                        return List.of();
+                    }
+                }
+                // Best score first, then newest task
+                return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Best match of one word within one field, per task
+        private void score(Map<Long, Integer> scores, TreeMap<String, Set<Long>> field, String word,
+                           int exact, int prefix, int fuzzy) {
+            Map<String, Set<Long>> withPrefix = field.subMap(word, true, word + Character.MAX_VALUE, false);
+            for (Map.Entry<String, Set<Long>> entry : withPrefix.entrySet()) {
+                int points = entry.getKey().equals(word) ? exact : prefix;
+                for (Long taskId : entry.getValue()) {
+                    scores.merge(taskId, points, Math::max);
+                }
+            }
+            if (word.length() < MIN_FUZZY_LENGTH) {
+                return;
+            }
+            for (String term : fuzzyMatches(word)) {
+                Set<Long> taskIds = field.get(term);
+                if (taskIds != null) {
+                    for (Long taskId : taskIds) {
+                        scores.merge(taskId, fuzzy, Math::max);
+                    }
+                }
+            }
+        }
+
+        // Terms within 1 edit (2 for words of 8 or more characters), other than the word itself
+        private Set<String> fuzzyMatches(String word) {
+            int maxEdits = word.length() >= 8 ? 2 : 1;
+            Set<String> grams = trigrams(word);
+            // Each edit changes at most three trigrams
+            int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                for (String term : termsByTrigram.getOrDefault(gram, Set.of())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            Set<String> matches = new HashSet<>();
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                String term = entry.getKey();
+                if (entry.getValue() >= minShared && !term.equals(word) && editDistance(word, term, maxEdits) <= maxEdits) {
+                    matches.add(term);
+                }
+            }
+            return matches;
+        }
+
+        private void add(TreeMap<String, Set<Long>> field, Set<String> terms, Long taskId) {
+            for (String term : terms) {
+                if (!nameTerms.containsKey(term) && !descriptionTerms.containsKey(term)) {
+                    for (String gram : trigrams(term)) {
+                        termsByTrigram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+                    }
+                }
+                field.computeIfAbsent(term, t -> new HashSet<>()).add(taskId);
+            }
+        }
+
+        private void removeLocked(Long taskId) {
+            versions.remove(taskId);
+            List<Set<String>> previous = termsByTask.remove(taskId);
+            if (previous == null) {
+                return;
+            }
+            removeFrom(nameTerms, previous.get(0), taskId);
+            removeFrom(descriptionTerms, previous.get(1), taskId);
+            for (Set<String> terms : previous) {
+                for (String term : terms) {
+                    if (!nameTerms.containsKey(term) && !descriptionTerms.containsKey(term)) {
+                        for (String gram : trigrams(term)) {
+                            Set<String> gramTerms = termsByTrigram.get(gram);
+                            if (gramTerms != null && gramTerms.remove(term) && gramTerms.isEmpty()) {
+                                termsByTrigram.remove(gram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void removeFrom(TreeMap<String, Set<Long>> field, Set<String> terms, Long taskId) {
+            for (String term : terms) {
+                Set<Long> taskIds = field.get(term);
+                if (taskIds != null && taskIds.remove(taskId) && taskIds.isEmpty()) {
+                    field.remove(term);
+                }
+            }
+        }
+    }
+}
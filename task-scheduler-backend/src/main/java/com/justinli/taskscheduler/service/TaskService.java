@@ -3,13 +3,18 @@ package com.justinli.taskscheduler.service;
 import com.justinli.taskscheduler.model.Task;
 import com.justinli.taskscheduler.model.User;
 import com.justinli.taskscheduler.repository.TaskRepository;
-import com.justinli.taskscheduler.repository.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -17,63 +22,123 @@ import java.util.Optional;
 public class TaskService {
 
     private final TaskRepository taskRepository;
-    private final UserRepository userRepository;
-
-    public TaskService(TaskRepository taskRepository, UserRepository userRepository) {
+    private final UserService userService;
+    private final SchedulingService schedulingService;
+    private final AnalyticsService analyticsService;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskService(TaskRepository taskRepository, UserService userService, SchedulingService schedulingService,
+                       AnalyticsService analyticsService, TaskSearchIndex taskSearchIndex,
+                       PlatformTransactionManager transactionManager) {
         this.taskRepository = taskRepository;
-        this.userRepository = userRepository;
+        this.userService = userService;
+        this.schedulingService = schedulingService;
+        this.analyticsService = analyticsService;
+        this.taskSearchIndex = taskSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        // If no authentication or anonymous, create/get a default user for testing
-        if (authentication == null || !authentication.isAuthenticated() ||
-            "anonymousUser".equals(authentication.getPrincipal())) {
-            return userRepository.findByEmail("default@test.com")
-                .orElseGet(() -> {
-                    User defaultUser = new User();
-                    defaultUser.setEmail("default@test.com");
-                    defaultUser.setName("Default User");
-                    defaultUser.setPassword("password"); // Required field
-                    return userRepository.save(defaultUser);
-                });
-        }
-
-        String username = authentication.getName();
-        return userRepository.findByEmail(username)
-            .orElseThrow(() -> new IllegalStateException("User not found"));
+        return userService.getCurrentUserOrDefault();
     }
 
     public Task createTask(Task task) {
         User currentUser = getCurrentUser();
         task.setUser(currentUser);
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        taskSearchIndex.taskSaved(saved);
+        return saved;
     }
 
+    // Read-only: Hibernate skips dirty checking and flushes, and the routing DataSource may use a replica
+    @Transactional(readOnly = true)
     public List<Task> getAllTasksForCurrentUser() {
         User currentUser = getCurrentUser();
         return taskRepository.findByUser(currentUser);
     }
 
+    /**
+     * The current user's tasks matching {@code query} by name or description, best match first.
+     */
+    @Transactional(readOnly = true)
+    public List<Task> searchTasksForCurrentUser(String query, int limit) {
+        User currentUser = getCurrentUser();
+        List<Long> ids = taskSearchIndex.search(currentUser, query, limit);
+        Map<Long, Task> tasks = new HashMap<>();
+        for (Task task : taskRepository.findAllById(ids)) {
+            if (task.getUser().getId().equals(currentUser.getId())) {
+                tasks.put(task.getId(), task);
+            }
+        }
+        return ids.stream().map(tasks::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Opaque version of the current user's task list: changes whenever a task or one of its
+     * calendar sessions is added, removed or updated.
+     */
+    @Transactional(readOnly = true)
+    public String getTaskListVersionForCurrentUser() {
+        User currentUser = getCurrentUser();
+        StringBuilder version = new StringBuilder();
+        for (Object[] row : taskRepository.findVersionsByUser(currentUser)) {
+            version.append(row[0]).append('@').append(row[1]).append(';');
+        }
+        version.append('|');
+        for (Object[] row : taskRepository.findEventVersionsByUser(currentUser)) {
+            version.append(row[0]).append('@').append(row[1]).append('-').append(row[2])
+                .append('/').append(row[3]).append(';');
+        }
+        return version.toString();
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Task> getTaskById(Long id) {
         User currentUser = getCurrentUser();
         return taskRepository.findById(id)
             .filter(task -> task.getUser().getId().equals(currentUser.getId()));
     }
 
+    /**
+     * Applies the non-null fields of {@code updatedTask}. Sessions that a longer duration needs are
+     * planned first, outside the transaction, since that reads the user's Google calendars.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Task updateTask(Long id, Task updatedTask) {
+        Optional<SchedulingService.Extension> extension;
+        try {
+            extension = updatedTask.getDuration() != null
+                ? schedulingService.planExtension(id, updatedTask)
+                : Optional.empty();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to reschedule task sessions: " + e.getMessage(), e);
+        }
+        try {
+            return transactionTemplate.execute(status -> applyUpdate(id, updatedTask, extension));
+        } catch (RuntimeException e) {
+            extension.ifPresent(schedulingService::release);
+            throw e;
+        }
+    }
+
+    private Task applyUpdate(Long id, Task updatedTask, Optional<SchedulingService.Extension> extension) {
         User currentUser = getCurrentUser();
         Task existingTask = taskRepository.findById(id)
             .filter(task -> task.getUser().getId().equals(currentUser.getId()))
             .orElseThrow(() -> new IllegalArgumentException("Task not found or unauthorized"));
 
+        boolean textChanged = false;
         if (updatedTask.getName() != null) {
+            textChanged = !updatedTask.getName().equals(existingTask.getName());
             existingTask.setName(updatedTask.getName());
         }
         if (updatedTask.getDescription() != null) {
+            textChanged |= !updatedTask.getDescription().equals(existingTask.getDescription());
             existingTask.setDescription(updatedTask.getDescription());
         }
+        boolean durationChanged = updatedTask.getDuration() != null
+            && !updatedTask.getDuration().equals(existingTask.getDuration());
         if (updatedTask.getDuration() != null) {
             existingTask.setDuration(updatedTask.getDuration());
         }
@@ -86,14 +151,25 @@ public class TaskService {
         if (updatedTask.getWorkHoursEnd() != null) {
             existingTask.setWorkHoursEnd(updatedTask.getWorkHoursEnd());
         }
-        if (updatedTask.getStatus() != null) {
-            existingTask.setStatus(updatedTask.getStatus());
+        if (updatedTask.getStatus() != null && updatedTask.getStatus() != existingTask.getStatus()) {
+            analyticsService.setStatus(existingTask, updatedTask.getStatus());
         }
         if (updatedTask.getCalendarId() != null) {
             existingTask.setCalendarId(updatedTask.getCalendarId());
         }
 
-        return taskRepository.save(existingTask);
+        // Adjust already scheduled sessions in place instead of leaving them out of sync
+        if (durationChanged && !existingTask.getCalendarEvents().isEmpty()) {
+            schedulingService.rescheduleForDuration(existingTask, extension);
+        } else {
+            extension.ifPresent(schedulingService::release);
+        }
+
+        Task saved = taskRepository.save(existingTask);
+        if (textChanged) {
+            taskSearchIndex.taskSaved(saved);
+        }
+        return saved;
     }
 
     public void deleteTask(Long id) {
@@ -102,6 +178,10 @@ public class TaskService {
             .filter(t -> t.getUser().getId().equals(currentUser.getId()))
             .orElseThrow(() -> new IllegalArgumentException("Task not found or unauthorized"));
 
+        // Queued inserts would otherwise still create the sessions, and created ones would stay in Google
+        schedulingService.unscheduleForDeletion(task);
+        analyticsService.taskDeleted(task);
+        taskSearchIndex.taskDeleted(task);
         taskRepository.delete(task);
     }
 }
@@ -0,0 +1,141 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.dto.CommonFreeSlotsResponse;
+import com.justinli.taskscheduler.scheduling.AvailabilityIndex;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import com.justinli.taskscheduler.scheduling.TimeSlot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Finds time when every participant is free.
+ *
+ * Participants are fetched in free/busy batches of 50 (the API's per-request limit) on a small pool.
+ * Each batch folds its calendars into one busy bitmap, and the batches are then ORed together, so
+ * hundreds of participants cost a handful of parallel requests plus a few word-wise ORs.
+ */
+@Service
+public class TeamAvailabilityService {
+
+    private static final int FREE_BUSY_BATCH_SIZE = 50;
+
+    private final GoogleCalendarService googleCalendarService;
+    private final ExecutorService fetchExecutor;
+
+    public TeamAvailabilityService(
+        GoogleCalendarService googleCalendarService,
+        @Value("${app.team.fetch-threads:8}") int fetchThreads
+    ) {
+        this.googleCalendarService = googleCalendarService;
+        // Fetches run with the requesting user's security context, and so with their Google credentials
+        this.fetchExecutor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(fetchThreads));
+    }
+
+    public CommonFreeSlotsResponse findCommonFreeSlots(
+            List<String> participants,
+            ZonedDateTime searchStart,
+            ZonedDateTime searchEnd,
+            int workStartHour,
+            int workEndHour,
+            int durationMinutes,
+            int maxResults
+    ) throws IOException, GeneralSecurityException {
+
+        if (participants == null || participants.isEmpty()) {
+            throw new IllegalArgumentException("At least one participant is required.");
+        }
+        List<String> uniqueParticipants = new ArrayList<>(new LinkedHashSet<>(participants));
+
+        List<CompletableFuture<BatchResult>> batches = new ArrayList<>();
+        for (int i = 0; i < uniqueParticipants.size(); i += FREE_BUSY_BATCH_SIZE) {
+            List<String> batch = uniqueParticipants.subList(i, Math.min(i + FREE_BUSY_BATCH_SIZE, uniqueParticipants.size()));
+            batches.add(CompletableFuture.supplyAsync(
+                () -> fetchBatch(batch, searchStart, searchEnd),
+                fetchExecutor
+            ));
+        }
+
+        AvailabilityIndex team = AvailabilityIndex.build(
+            searchStart, searchEnd, workStartHour, workEndHour, 0, List.of()
+        );
+        List<String> unavailable = new ArrayList<>();
+        for (CompletableFuture<BatchResult> future : batches) {
+            BatchResult result = join(future);
+            team.mergeBusy(result.busy());
+            unavailable.addAll(result.unavailable());
+        }
+
+        List<Map<String, ZonedDateTime>> slots = team.freeSlots(durationMinutes).stream()
+            .limit(Math.max(1, maxResults))
+            .map(TimeSlot::toMap)
+            .collect(Collectors.toList());
+
+        CommonFreeSlotsResponse response = new CommonFreeSlotsResponse();
+        response.setParticipantCount(uniqueParticipants.size());
+        response.setUnavailableParticipants(unavailable);
+        response.setSlots(slots);
+        return response;
+    }
+
+    private BatchResult fetchBatch(List<String> calendarIds, ZonedDateTime searchStart, ZonedDateTime searchEnd) {
+        try {
+            Map<String, List<BusyInterval>> busyByCalendar =
+                googleCalendarService.getFreeBusy(calendarIds, searchStart, searchEnd);
+
+            AvailabilityIndex batchBusy = new AvailabilityIndex(searchStart, searchEnd, 0);
+            List<String> unavailable = new ArrayList<>();
+            for (String calendarId : calendarIds) {
+                List<BusyInterval> busy = busyByCalendar.get(calendarId);
+                if (busy == null) {
+                    unavailable.add(calendarId);
+                    continue;
+                }
+                busy.forEach(batchBusy::addBusy);
+            }
+            return new BatchResult(batchBusy, unavailable);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private BatchResult join(CompletableFuture<BatchResult> future) throws IOException, GeneralSecurityException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof GeneralSecurityException securityException) {
+                throw securityException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private record BatchResult(AvailabilityIndex busy, List<String> unavailable) {
+    }
+}
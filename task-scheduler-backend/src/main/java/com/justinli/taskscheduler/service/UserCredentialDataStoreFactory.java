@@ -0,0 +1,157 @@
+package com.justinli.taskscheduler.service;
+
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.util.store.AbstractDataStore;
+import com.google.api.client.util.store.AbstractDataStoreFactory;
+import com.google.api.client.util.store.DataStore;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stores Google OAuth credentials in the {@code users} table (google_access_token, google_refresh_token,
+ * google_token_expiry), keyed by user email, so every node sees the same tokens.
+ *
+ * Reads go through a short-lived in-memory copy, so a Calendar call does not hit the database for
+ * its credential. Writes (new connections, refreshes) update the row and the copy together.
+ */
+@Component
+public class UserCredentialDataStoreFactory extends AbstractDataStoreFactory {
+
+    private final UserRepository userRepository;
+    private final long cacheTtlMillis;
+
+    public UserCredentialDataStoreFactory(
+        UserRepository userRepository,
+        @Value("${app.oauth.credential-cache-seconds:60}") long cacheTtlSeconds
+    ) {
+        this.userRepository = userRepository;
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <V extends Serializable> DataStore<V> createDataStore(String id) throws IOException {
+        if (!StoredCredential.DEFAULT_DATA_STORE_ID.equals(id)) {
+            throw new IOException("Only the credential data store is backed by the users table: " + id);
+        }
+        return (DataStore<V>) new UserCredentialDataStore(this, id);
+    }
+
+    private class UserCredentialDataStore extends AbstractDataStore<StoredCredential> {
+
+        // email -> credential (empty when the user has none), with the time it was read
+        private final Map<String, CachedCredential> cache = new ConcurrentHashMap<>();
+
+        UserCredentialDataStore(UserCredentialDataStoreFactory factory, String id) {
+            super(factory, id);
+        }
+
+        @Override
+        public StoredCredential get(String email) {
+            CachedCredential cached = cache.get(email);
+            if (cached == null || System.currentTimeMillis() - cached.loadedAt() > cacheTtlMillis) {
+                cached = new CachedCredential(load(email), System.currentTimeMillis());
+                cache.put(email, cached);
+            }
+            return cached.credential().map(UserCredentialDataStoreFactory::copy).orElse(null);
+        }
+
+        @Override
+        public DataStore<StoredCredential> set(String email, StoredCredential credential) throws IOException {
+            User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IOException("No user to store Google credentials for: " + email));
+            user.setGoogleAccessToken(credential.getAccessToken());
+            if (credential.getRefreshToken() != null) {
+                user.setGoogleRefreshToken(credential.getRefreshToken());
+            }
+            user.setGoogleTokenExpiry(toLocalDateTime(credential.getExpirationTimeMilliseconds()));
+            userRepository.save(user);
+            cache.put(email, new CachedCredential(Optional.of(toCredential(user)), System.currentTimeMillis()));
+            return this;
+        }
+
+        @Override
+        public DataStore<StoredCredential> delete(String email) {
+            userRepository.findByEmail(email).ifPresent(user -> {
+                user.setGoogleAccessToken(null);
+                user.setGoogleRefreshToken(null);
+                user.setGoogleTokenExpiry(null);
+                userRepository.save(user);
+            });
+            cache.remove(email);
+            return this;
+        }
+
+        @Override
+        public DataStore<StoredCredential> clear() {
+            keySet().forEach(this::delete);
+            return this;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return userRepository.findByGoogleRefreshTokenIsNotNull().stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Collection<StoredCredential> values() {
+            return userRepository.findByGoogleRefreshTokenIsNotNull().stream()
+                .map(UserCredentialDataStoreFactory::toCredential)
+                .toList();
+        }
+
+        @Override
+        public int size() {
+            return keySet().size();
+        }
+
+        private Optional<StoredCredential> load(String email) {
+            return userRepository.findByEmail(email)
+                .filter(user -> user.getGoogleAccessToken() != null || user.getGoogleRefreshToken() != null)
+                .map(UserCredentialDataStoreFactory::toCredential);
+        }
+    }
+
+    private static StoredCredential toCredential(User user) {
+        StoredCredential credential = new StoredCredential();
+        credential.setAccessToken(user.getGoogleAccessToken());
+        credential.setRefreshToken(user.getGoogleRefreshToken());
+        if (user.getGoogleTokenExpiry() != null) {
+            credential.setExpirationTimeMilliseconds(
+                user.getGoogleTokenExpiry().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            );
+        }
+        return credential;
+    }
+
+    // StoredCredential is mutable, so callers never get the cached instance
+    private static StoredCredential copy(StoredCredential credential) {
+        return new StoredCredential()
+            .setAccessToken(credential.getAccessToken())
+            .setRefreshToken(credential.getRefreshToken())
+            .setExpirationTimeMilliseconds(credential.getExpirationTimeMilliseconds());
+    }
+
+    private static LocalDateTime toLocalDateTime(Long epochMillis) {
+        return epochMillis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private record CachedCredential(Optional<StoredCredential> credential, long loadedAt) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.dto.AvailabilitySettings;
+import com.justinli.taskscheduler.repository.AvailabilityExceptionRepository;
+import com.justinli.taskscheduler.repository.AvailabilityRuleRepository;
+import com.justinli.taskscheduler.repository.AvailabilityVersionRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "app.calendar.watch.webhook-url=https://example.com/api/calendars/notifications",
+    "app.outbox.poll-interval-ms=100000000",
+    "app.oauth.refresh.scan-interval-ms=100000000",
+    "app.journal.enabled=false",
+    "app.busy-cache.snapshot.enabled=false"
+})
+class AvailabilityServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private AvailabilityRuleRepository ruleRepository;
+
+    @Autowired
+    private AvailabilityExceptionRepository exceptionRepository;
+
+    @Autowired
+    private AvailabilityVersionRepository versionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void replaceOnAnotherNodeIsPickedUpOnRead() {
+        // A second node: its own template cache over the same database
+        AvailabilityService otherNode = new AvailabilityService(ruleRepository, exceptionRepository,
+            versionRepository, userRepository, userService, transactionManager);
+
+        availabilityService.replaceSettingsForCurrentUser(mondays("09:00", "12:00"));
+        assertArrayEquals(new int[] {540, 720}, mondayWindows(availabilityService));
+        assertArrayEquals(new int[] {540, 720}, mondayWindows(otherNode));
+
+        availabilityService.replaceSettingsForCurrentUser(mondays("13:00", "17:00"));
+        assertArrayEquals(new int[] {780, 1020}, mondayWindows(availabilityService));
+        assertArrayEquals(new int[] {780, 1020}, mondayWindows(otherNode));
+    }
+
+    @Test
+    void rolledBackReplaceIsNotCached() {
+        availabilityService.replaceSettingsForCurrentUser(mondays("08:00", "10:00"));
+        assertArrayEquals(new int[] {480, 600}, mondayWindows(availabilityService));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            availabilityService.replaceSettingsForCurrentUser(mondays("18:00", "20:00"));
+            status.setRollbackOnly();
+        });
+
+        assertArrayEquals(new int[] {480, 600}, mondayWindows(availabilityService));
+    }
+
+    private static AvailabilitySettings mondays(String start, String end) {
+        AvailabilitySettings settings = new AvailabilitySettings();
+        settings.getWindows().add(new AvailabilitySettings.Window(List.of("MONDAY"), start, end));
+        return settings;
+    }
+
+    private static int[] mondayWindows(AvailabilityService service) {
+        return service.getTemplateForCurrentUser().orElseThrow().windowsFor(MONDAY);
+    }
+}
@@ -0,0 +1,132 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.CalendarWatchChannel;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.CalendarWatchChannelRepository;
+import com.justinli.taskscheduler.scheduling.BusyInterval;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "app.calendar.watch.webhook-url=https://example.com/api/calendars/notifications",
+    "app.outbox.poll-interval-ms=100000000",
+    "app.oauth.refresh.scan-interval-ms=100000000",
+    "app.journal.enabled=false",
+    "app.busy-cache.snapshot.enabled=false"
+})
+class CalendarWatchNotificationTest {
+
+    private static final Instant FROM = Instant.parse("2030-01-07T00:00:00Z");
+    private static final Instant TO = FROM.plus(7, ChronoUnit.DAYS);
+    private static final List<BusyInterval> BUSY = List.of(
+        new BusyInterval(FROM.plus(9, ChronoUnit.HOURS), FROM.plus(10, ChronoUnit.HOURS)));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CalendarBusyCache busyCache;
+
+    @Autowired
+    private CalendarWatchChannelRepository channelRepository;
+
+    @Autowired
+    private UserService userService;
+
+    private GoogleNotificationStandIn google;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        google = new GoogleNotificationStandIn("http://localhost:" + port + "/api/calendars/notifications");
+        user = userService.getCurrentUserOrDefault();
+    }
+
+    @Test
+    void changeNotificationInvalidatesCalendar() {
+        CalendarWatchChannel channel = openChannel("work");
+        cache(busyCache, "work");
+
+        assertEquals(200, google.changed(channel).getStatusCode().value());
+
+        assertFalse(busyCache.get(user.getEmail(), "work", FROM, TO).isPresent());
+        assertTrue(channelRepository.findByChannelId(channel.getChannelId()).get().getLastNotifiedAt() != null);
+    }
+
+    @Test
+    void syncMessageKeepsCache() {
+        CalendarWatchChannel channel = openChannel("team");
+        cache(busyCache, "team");
+
+        assertEquals(200, google.sync(channel).getStatusCode().value());
+
+        assertTrue(busyCache.get(user.getEmail(), "team", FROM, TO).isPresent());
+    }
+
+    @Test
+    void wrongTokenIsRejected() {
+        CalendarWatchChannel channel = openChannel("holidays");
+        cache(busyCache, "holidays");
+
+        assertEquals(404, google.send(channel.getChannelId(), "forged", channel.getResourceId(), "exists")
+            .getStatusCode().value());
+        assertEquals(404, google.send(UUID.randomUUID().toString(), channel.getToken(), null, "exists")
+            .getStatusCode().value());
+
+        assertTrue(busyCache.get(user.getEmail(), "holidays", FROM, TO).isPresent());
+    }
+
+    @Test
+    void notificationReceivedByAnotherNodeInvalidatesThisOne() {
+        CalendarWatchChannel channel = openChannel("shared");
+        // This node's cache, while the notification is delivered to the application under test
+        CalendarBusyCache thisNode = new CalendarBusyCache();
+        thisNode.watch(user.getEmail(), "shared", Instant.now().plusSeconds(3600));
+        checkNotified(thisNode, "shared");
+        cache(thisNode, "shared");
+        checkNotified(thisNode, "shared");
+        assertTrue(thisNode.get(user.getEmail(), "shared", FROM, TO).isPresent(), "no notification yet");
+
+        assertEquals(200, google.changed(channel).getStatusCode().value());
+        checkNotified(thisNode, "shared");
+
+        assertFalse(thisNode.get(user.getEmail(), "shared", FROM, TO).isPresent());
+    }
+
+    private CalendarWatchChannel openChannel(String calendarId) {
+        CalendarWatchChannel channel = new CalendarWatchChannel();
+        channel.setChannelId(UUID.randomUUID().toString());
+        channel.setResourceId("resource-" + calendarId);
+        channel.setCalendarId(calendarId);
+        channel.setToken(UUID.randomUUID().toString());
+        channel.setExpiration(LocalDateTime.now().plusHours(1));
+        channel.setUser(user);
+        busyCache.watch(user.getEmail(), calendarId, Instant.now().plusSeconds(3600));
+        return channelRepository.save(channel);
+    }
+
+    private void cache(CalendarBusyCache cache, String calendarId) {
+        long generation = cache.generation(user.getEmail(), calendarId);
+        cache.put(user.getEmail(), calendarId, generation, FROM, TO, Instant.now(), BUSY);
+        assertTrue(cache.get(user.getEmail(), calendarId, FROM, TO).isPresent());
+    }
+
+    private void checkNotified(CalendarBusyCache cache, String calendarId) {
+        cache.checkNotified(user.getEmail(), calendarId,
+            channelRepository.findLastNotifiedAt(user.getEmail(), calendarId).orElse(null));
+    }
+}
@@ -0,0 +1,55 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.CalendarWatchChannel;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays Google's side of a watch channel: posts push notifications to the webhook the way Google
+ * does, with an empty body and everything in X-Goog-* headers.
+ */
+class GoogleNotificationStandIn {
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final String webhookUrl;
+    private final AtomicLong messageNumber = new AtomicLong();
+
+    GoogleNotificationStandIn(String webhookUrl) {
+        this.webhookUrl = webhookUrl;
+        // Status codes are what the tests check, so don't turn 4xx into exceptions
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(org.springframework.http.client.ClientHttpResponse response) {
+                return false;
+            }
+        });
+    }
+
+    // First message on a new channel
+    ResponseEntity<Void> sync(CalendarWatchChannel channel) {
+        return send(channel.getChannelId(), channel.getToken(), channel.getResourceId(), "sync");
+    }
+
+    // Something on the watched calendar changed
+    ResponseEntity<Void> changed(CalendarWatchChannel channel) {
+        return send(channel.getChannelId(), channel.getToken(), channel.getResourceId(), "exists");
+    }
+
+    ResponseEntity<Void> send(String channelId, String token, String resourceId, String resourceState) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Goog-Channel-ID", channelId);
+        if (token != null) {
+            headers.set("X-Goog-Channel-Token", token);
+        }
+        headers.set("X-Goog-Resource-ID", resourceId);
+        headers.set("X-Goog-Resource-State", resourceState);
+        headers.set("X-Goog-Message-Number", Long.toString(messageNumber.incrementAndGet()));
+        return restTemplate.exchange(webhookUrl, HttpMethod.POST, new HttpEntity<>(headers), Void.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.TokenRefreshLeaseRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import com.justinli.taskscheduler.security.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "app.calendar.watch.webhook-url=https://example.com/api/calendars/notifications",
+    "app.outbox.poll-interval-ms=100000000",
+    "app.oauth.refresh.scan-interval-ms=100000000",
+    "app.journal.enabled=false",
+    "app.busy-cache.snapshot.enabled=false"
+})
+class GoogleTokenRefresherTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRefreshLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final GoogleCalendarService google = mock(GoogleCalendarService.class);
+    // Users whose token was refreshed, once per call
+    private final List<String> refreshed = new CopyOnWriteArrayList<>();
+    private GoogleTokenRefresher nodeA;
+    private GoogleTokenRefresher nodeB;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = newNode();
+        nodeB = newNode();
+        user = new User();
+        user.setName("Token Test");
+        user.setEmail("token-" + UUID.randomUUID() + "@test.com");
+        user.setPassword("password");
+        user.setGoogleRefreshToken("refresh-token");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+        User saved = userRepository.findById(user.getId()).orElseThrow();
+        saved.setGoogleRefreshToken(null);
+        userRepository.save(saved);
+    }
+
+    @Test
+    void onlyOneNodeRefreshesAUser() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(google.refreshCredential()).thenAnswer(invocation -> {
+            refreshed.add(UserContext.currentEmail());
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return true;
+        });
+
+        nodeA.refreshExpiringTokens();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        nodeB.refreshExpiringTokens();
+        Thread.sleep(500);
+        release.countDown();
+        Thread.sleep(500);
+
+        assertEquals(1, refreshes());
+    }
+
+    @Test
+    void failedRefreshHoldsOffOtherNodes() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        when(google.refreshCredential()).thenAnswer(invocation -> {
+            refreshed.add(UserContext.currentEmail());
+            failed.countDown();
+            throw new IOException("invalid_grant");
+        });
+
+        nodeA.refreshExpiringTokens();
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        nodeB.refreshExpiringTokens();
+        Thread.sleep(500);
+
+        assertEquals(1, refreshes());
+    }
+
+    private GoogleTokenRefresher newNode() {
+        return new GoogleTokenRefresher(userRepository, leaseRepository, google, transactionManager,
+            600, 0, 300, 60, 1);
+    }
+
+    private long refreshes() {
+        return refreshed.stream().filter(user.getEmail()::equals).count();
+    }
+}
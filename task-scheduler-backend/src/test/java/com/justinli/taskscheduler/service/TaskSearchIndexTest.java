@@ -0,0 +1,108 @@
+package com.justinli.taskscheduler.service;
+
+import com.justinli.taskscheduler.model.Task;
+import com.justinli.taskscheduler.model.User;
+import com.justinli.taskscheduler.repository.TaskRepository;
+import com.justinli.taskscheduler.repository.TaskSearchVersionRepository;
+import com.justinli.taskscheduler.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "app.calendar.watch.webhook-url=https://example.com/api/calendars/notifications",
+    "app.outbox.poll-interval-ms=100000000",
+    "app.oauth.refresh.scan-interval-ms=100000000",
+    "app.journal.enabled=false",
+    "app.busy-cache.snapshot.enabled=false"
+})
+class TaskSearchIndexTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskSearchVersionRepository versionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        user = userService.getCurrentUserOrDefault();
+    }
+
+    @Test
+    void writesShowUpInTheIndexAtCommit() {
+        Task task = taskService.createTask(newTask("Quarterly budget review", "spreadsheets"));
+        assertEquals(List.of(task.getId()), search(taskSearchIndex, "budget"));
+
+        Task rename = new Task();
+        rename.setName("Quarterly forecast");
+        taskService.updateTask(task.getId(), rename);
+        assertEquals(List.of(), search(taskSearchIndex, "budget"));
+        assertEquals(List.of(task.getId()), search(taskSearchIndex, "forcast"));
+
+        taskService.deleteTask(task.getId());
+        assertEquals(List.of(), search(taskSearchIndex, "forecast"));
+    }
+
+    @Test
+    void writesOfAnotherNodeAreFoundThroughTheVersion() {
+        // A second node: its own in-memory index over the same database
+        TaskSearchIndex otherNode = new TaskSearchIndex(taskRepository, versionRepository, userRepository,
+            dataSource, transactionManager);
+        Task task = taskService.createTask(newTask("Dentist appointment", null));
+        assertEquals(List.of(task.getId()), search(otherNode, "dentist"));
+        long version = versionRepository.findVersion(user.getId()).orElseThrow();
+
+        Task rename = new Task();
+        rename.setName("Orthodontist appointment");
+        taskService.updateTask(task.getId(), rename);
+
+        assertTrue(versionRepository.findVersion(user.getId()).orElseThrow() > version);
+        assertEquals(List.of(task.getId()), search(otherNode, "orthodontist"));
+        assertEquals(List.of(), search(otherNode, "dentist"));
+    }
+
+    private Task newTask(String name, String description) {
+        Task task = new Task();
+        task.setName(name);
+        task.setDescription(description);
+        task.setStatus(Task.TaskStatus.PENDING);
+        return task;
+    }
+
+    private List<Long> search(TaskSearchIndex index, String query) {
+        return transactionTemplate.execute(status -> index.search(user, query, 10));
+    }
+}